@@ -0,0 +1,104 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Writes synthetic JAX-RS resource interfaces documented with {@code @apifest.*} tags, like
+ * {@code TestParsingResource}, to be used as input of end-to-end doclet benchmarks.
+ */
+public class CorpusGenerator {
+    static final String ROOT_PACKAGE = "synthetic";
+    private static final String[] HTTP_METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    private final int endpointsPerInterface;
+    private final int interfacesPerPackage;
+
+    public CorpusGenerator(int endpointsPerInterface, int interfacesPerPackage) {
+        this.endpointsPerInterface = endpointsPerInterface;
+        this.interfacesPerPackage = interfacesPerPackage;
+    }
+
+    /**
+     * Generates a corpus with the given number of endpoints.
+     *
+     * @param args
+     *            the output directory and the number of endpoints
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CorpusGenerator <outputDir> <endpoints>");
+            return;
+        }
+        new CorpusGenerator(10, 100).generate(Paths.get(args[0]), Integer.parseInt(args[1]));
+    }
+
+    /**
+     * Writes the interfaces under the {@value #ROOT_PACKAGE} package of the source directory.
+     */
+    public void generate(Path sourceDir, int endpointCount) throws IOException {
+        int interfaceCount = (endpointCount + endpointsPerInterface - 1) / endpointsPerInterface;
+        for (int i = 0; i < interfaceCount; i++) {
+            String packageName = ROOT_PACKAGE + ".p" + (i / interfacesPerPackage);
+            Path packageDir = sourceDir.resolve(packageName.replace('.', '/'));
+            Files.createDirectories(packageDir);
+            int firstEndpoint = i * endpointsPerInterface;
+            int lastEndpoint = Math.min(firstEndpoint + endpointsPerInterface, endpointCount);
+            try (BufferedWriter out = Files.newBufferedWriter(packageDir.resolve("Resource" + i + ".java"), StandardCharsets.UTF_8)) {
+                writeInterface(out, packageName, i, firstEndpoint, lastEndpoint);
+            }
+        }
+    }
+
+    private void writeInterface(BufferedWriter out, String packageName, int index, int firstEndpoint, int lastEndpoint) throws IOException {
+        out.write("package " + packageName + ";\n\n");
+        out.write("import jakarta.ws.rs.*;\n");
+        out.write("import jakarta.ws.rs.core.MediaType;\n");
+        out.write("import jakarta.ws.rs.core.Response;\n\n");
+        out.write("@Path(\"/resources" + index + "\")\n");
+        out.write("public interface Resource" + index + " {\n");
+        for (int endpoint = firstEndpoint; endpoint < lastEndpoint; endpoint++) {
+            writeMethod(out, endpoint);
+        }
+        // not an endpoint, like the helper methods of real resources
+        out.write("\n    default String describe() {\n        return \"Resource" + index + "\";\n    }\n");
+        out.write("}\n");
+    }
+
+    private void writeMethod(BufferedWriter out, int endpoint) throws IOException {
+        // between 8 and 57 tags, every tenth endpoint has example payloads
+        int tagCount = 8 + (endpoint * 7) % 50;
+        int payloadSize = endpoint % 10 == 0 ? 2048 : 0;
+        Map<String, String> tags = SyntheticTags.endpoint(endpoint, tagCount, payloadSize);
+        out.write("\n    /**\n");
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            out.write("     * @" + tag.getKey() + " " + tag.getValue() + "\n");
+        }
+        out.write("     */\n");
+        out.write("    @Path(\"/" + endpoint + "/{id}/items\")\n");
+        out.write("    @" + HTTP_METHODS[endpoint % HTTP_METHODS.length] + "\n");
+        out.write("    @Produces(MediaType.APPLICATION_JSON)\n");
+        out.write("    Response endpoint" + endpoint + "(@PathParam(\"id\") String id);\n");
+    }
+}
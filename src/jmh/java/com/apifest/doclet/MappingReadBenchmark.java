@@ -0,0 +1,108 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apifest.api.Mapping;
+import com.apifest.api.MappingAction;
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.ResponseFilter;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * Compares loading the same mapping from the formatted XML and from the binary form, as a gateway does at start-up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingReadBenchmark {
+    @Param({"1000", "10000"})
+    public int endpointCount;
+
+    private byte[] xml;
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws IOException {
+        ByteArrayOutputStream xmlOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream binaryOut = new ByteArrayOutputStream();
+        try (MappingWriter xmlWriter = new MappingWriter(xmlOut, "v1", "localhost", 8080);
+             BinaryMappingWriter binaryWriter = new BinaryMappingWriter(binaryOut, "v1", "localhost", 8080)) {
+            for (int i = 0; i < endpointCount; i++) {
+                ParsedEndpoint parsed = endpoint(i);
+                xmlWriter.write(parsed);
+                binaryWriter.write(parsed);
+            }
+        }
+        xml = xmlOut.toByteArray();
+        binary = binaryOut.toByteArray();
+    }
+
+    private static ParsedEndpoint endpoint(int index) {
+        MappingEndpoint endpoint = new MappingEndpoint();
+        endpoint.setExternalEndpoint("/v1/resources" + index + "/{id}/items");
+        endpoint.setInternalEndpoint("/app/api/resources" + index + "/{id}/items");
+        endpoint.setMethod(index % 2 == 0 ? "GET" : "POST");
+        endpoint.setAuthType(index % 3 == 0 ? "client-app" : "user");
+        endpoint.setScope("resources_" + (index % 20));
+        endpoint.setVarName("id");
+        endpoint.setVarExpression("\\d+");
+        MappingAction action = new MappingAction();
+        action.setActionClassName("com.apifest.example.ReplaceCustomerIdAction");
+        endpoint.setAction(action);
+        ResponseFilter filter = new ResponseFilter();
+        filter.setFilterClassName("com.apifest.example.RemoveBalanceFilter");
+        endpoint.setFilters(filter);
+        Map<String, String> customProperties = new HashMap<>();
+        customProperties.put("com.apifest.example.RateLimit.value", String.valueOf(index % 5 * 100));
+        endpoint.setCustomProperties(customProperties);
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setMappingEndpoint(endpoint);
+        return parsed;
+    }
+
+    @Benchmark
+    public Mapping readXml() throws JAXBException {
+        return (Mapping) MappingWriter.getContext().createUnmarshaller().unmarshal(new ByteArrayInputStream(xml));
+    }
+
+    @Benchmark
+    public Mapping readBinary() throws IOException {
+        return BinaryMappingReader.read(new ByteArrayInputStream(binary));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.lang.model.element.AnnotationMirror;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.MappingEndpointDocumentation;
+
+/**
+ * Benchmarks the static parse methods of {@link Parser} on the tag map of one endpoint.
+ * Run with {@code mvn -P benchmarks test-compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    private static final String CUSTOM_ANNOTATION = "com.apifest.doclet.tests.resources.CustomAnnotation";
+    private static final String MULTIPLE_ANNOTATION = "com.apifest.doclet.tests.resources.Multiple";
+
+    @Param({"5", "50", "500"})
+    public int tagCount;
+
+    @Param({"0", "65536"})
+    public int payloadSize;
+
+    private Map<String, String> tagMap;
+    private List<AnnotationMirror> annotations;
+    private AnnotationResolver annotationResolver;
+
+    @Setup
+    public void setup() {
+        tagMap = new TreeMap<>(SyntheticTags.endpoint(1, tagCount, payloadSize));
+        annotations = new ArrayList<>();
+        annotations.add(SyntheticAnnotations.annotation("jakarta.ws.rs.Path", Map.of("value", "/items")));
+        annotations.add(SyntheticAnnotations.annotation("jakarta.ws.rs.GET", Map.of()));
+        annotations.add(SyntheticAnnotations.annotation("jakarta.ws.rs.Produces", Map.of("value", List.of("application/json"))));
+        annotations.add(SyntheticAnnotations.annotation(CUSTOM_ANNOTATION, Map.of("value", List.of("test", "test2"))));
+        annotations.add(SyntheticAnnotations.annotation(MULTIPLE_ANNOTATION, Map.of("names", List.of("test", "test2"), "value", List.of(2, 1))));
+        Map<String, List<String>> customAnnotations = new HashMap<>();
+        customAnnotations.put(CUSTOM_ANNOTATION, Collections.emptyList());
+        customAnnotations.put(MULTIPLE_ANNOTATION, Collections.emptyList());
+        annotationResolver = new AnnotationResolver(customAnnotations);
+    }
+
+    @Benchmark
+    public MappingEndpoint parseInternalEndpointTag() {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        Parser.parseInternalEndpointTag(tagMap, mappingEndpoint, new MappingEndpointDocumentation(), "/app");
+        return mappingEndpoint;
+    }
+
+    @Benchmark
+    public MappingEndpointDocumentation parseDocsDescriptiveTags() {
+        MappingEndpointDocumentation mappingEndpointDocumentation = new MappingEndpointDocumentation();
+        Parser.parseDocsDescriptiveTags(tagMap, mappingEndpointDocumentation);
+        return mappingEndpointDocumentation;
+    }
+
+    @Benchmark
+    public MappingEndpoint parseScopeTag() {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        Parser.parseScopeTag(tagMap, mappingEndpoint, new MappingEndpointDocumentation());
+        return mappingEndpoint;
+    }
+
+    @Benchmark
+    public MappingEndpoint parseActionTag() {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        Parser.parseActionTag(tagMap, mappingEndpoint, "com.all.mappings.DefaultMapping");
+        return mappingEndpoint;
+    }
+
+    @Benchmark
+    public MappingEndpoint parseFilterTag() {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        Parser.parseFilterTag(tagMap, mappingEndpoint, "com.all.mappings.DefaultFilter");
+        return mappingEndpoint;
+    }
+
+    @Benchmark
+    public MappingEndpoint parseAuthTypeTag() throws ParseException {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        Parser.parseAuthTypeTag(tagMap, mappingEndpoint);
+        return mappingEndpoint;
+    }
+
+    @Benchmark
+    public MappingEndpoint parseEndpointBackendTags() {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        Parser.parseEndpointBackendTags(tagMap, mappingEndpoint, "localhost", 1212);
+        return mappingEndpoint;
+    }
+
+    @Benchmark
+    public MappingEndpoint parseHidden() {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        Parser.parseHidden(tagMap, mappingEndpoint, new MappingEndpointDocumentation());
+        return mappingEndpoint;
+    }
+
+    @Benchmark
+    public MappingEndpoint parseMethodAnnotations() {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        Parser.parseMethodAnnotations(annotations, mappingEndpoint, new MappingEndpointDocumentation(), annotationResolver);
+        return mappingEndpoint;
+    }
+
+    @Benchmark
+    public MappingEndpointDocumentation parseRequestParams() {
+        MappingEndpointDocumentation mappingEndpointDocumentation = new MappingEndpointDocumentation();
+        Parser.parseRequestParams(tagMap, mappingEndpointDocumentation);
+        return mappingEndpointDocumentation;
+    }
+
+    @Benchmark
+    public MappingEndpointDocumentation parseResultParams() {
+        MappingEndpointDocumentation mappingEndpointDocumentation = new MappingEndpointDocumentation();
+        Parser.parseResultParams(tagMap, mappingEndpointDocumentation);
+        return mappingEndpointDocumentation;
+    }
+
+    @Benchmark
+    public MappingEndpointDocumentation parseExceptions() {
+        MappingEndpointDocumentation mappingEndpointDocumentation = new MappingEndpointDocumentation();
+        Parser.parseExceptions(tagMap, mappingEndpointDocumentation);
+        return mappingEndpointDocumentation;
+    }
+
+    /**
+     * The request, result and exception parsing of one endpoint as done by the doclet, with a shared dispatcher.
+     */
+    @Benchmark
+    public MappingEndpointDocumentation parseDispatchedTags() {
+        MappingEndpointDocumentation mappingEndpointDocumentation = new MappingEndpointDocumentation();
+        TagDispatcher tags = TagDispatcher.dispatch(tagMap);
+        Parser.parseRequestParams(tagMap, tags, mappingEndpointDocumentation);
+        Parser.parseResultParams(tagMap, tags, mappingEndpointDocumentation);
+        Parser.parseExceptions(tags, mappingEndpointDocumentation);
+        return mappingEndpointDocumentation;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.ToolProvider;
+
+/**
+ * Runs the doclet end to end over synthetic corpora and reports, for every corpus size, the wall time,
+ * the peak heap usage, the allocated bytes and the size of the generated files.
+ * Every size is measured in a fresh JVM. The arguments are the corpus sizes, optionally followed by {@code --}
+ * and extra doclet options, e.g. {@code 10000 50000 -- -parallelism 4}.
+ */
+public class ScalingBenchmark {
+    private static final String MEASURE = "--measure";
+    private static final String DOCLET_ARGS_SEPARATOR = "--";
+    private static final String RESULT_PREFIX = "RESULT ";
+    private static final String MAPPING_FILE = "mapping.xml";
+    private static final String DOCS_FILE = "mapping-docs.json";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && MEASURE.equals(args[0])) {
+            measure(Paths.get(args[1]), Paths.get(args[2]), args.length > 3 ? args[3] : "");
+            return;
+        }
+        List<Integer> sizes = new ArrayList<>();
+        StringBuilder docletArgs = new StringBuilder();
+        boolean sizesDone = false;
+        for (String arg : args) {
+            if (sizesDone) {
+                docletArgs.append(arg).append(' ');
+            } else if (DOCLET_ARGS_SEPARATOR.equals(arg)) {
+                sizesDone = true;
+            } else {
+                sizes.add(Integer.parseInt(arg));
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.addAll(Arrays.asList(10000, 50000, 100000));
+        }
+        System.out.println(String.format("%10s %10s %12s %14s %14s %14s",
+                "endpoints", "wall ms", "peak heap MB", "allocated MB", "mapping bytes", "docs bytes"));
+        for (int size : sizes) {
+            Path workDir = Files.createTempDirectory("apifest-corpus-" + size);
+            Path sourceDir = Files.createDirectories(workDir.resolve("src"));
+            Path outputDir = Files.createDirectories(workDir.resolve("out"));
+            new CorpusGenerator(10, 100).generate(sourceDir, size);
+            String[] result = runMeasurement(sourceDir, outputDir, docletArgs.toString());
+            System.out.println(String.format("%10d %10s %12s %14s %14s %14s",
+                    size, result[0], result[1], result[2], result[3], result[4]));
+        }
+    }
+
+    private static String[] runMeasurement(Path sourceDir, Path outputDir, String docletArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (jvmArg.startsWith("-Xm")) {
+                command.add(jvmArg);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ScalingBenchmark.class.getName());
+        command.add(MEASURE);
+        command.add(sourceDir.toString());
+        command.add(outputDir.toString());
+        command.add(docletArgs);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String[] result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = line.substring(RESULT_PREFIX.length()).split(" ");
+                } else if (line.startsWith("ERROR") || line.startsWith("error")) {
+                    System.err.println(line);
+                }
+            }
+        }
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException("the measurement of " + sourceDir + " failed");
+        }
+        return result;
+    }
+
+    /**
+     * Runs the doclet once in this JVM. The allocated bytes are those of all the threads, sampled while the doclet
+     * runs, see {@link AllocationSampler}.
+     */
+    private static void measure(Path sourceDir, Path outputDir, String docletArgs) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "-doclet", Doclet.class.getName(),
+                "-classpath", System.getProperty("java.class.path"),
+                "-sourcepath", sourceDir.toString(),
+                "-subpackages", CorpusGenerator.ROOT_PACKAGE,
+                "-quiet",
+                "-mode", "doc,mapping",
+                "-mappingVersion", "v1",
+                "-mappingFilename", outputDir.resolve(MAPPING_FILE).toString(),
+                "-mappingDocsFilename", outputDir.resolve(DOCS_FILE).toString(),
+                "-backendHost", "localhost",
+                "-backendPort", "8080",
+                "-applicationPath", "/app"));
+        if (!docletArgs.isBlank()) {
+            args.addAll(Arrays.asList(docletArgs.trim().split("\\s+")));
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        AllocationSampler allocationSampler = new AllocationSampler();
+        long start = System.nanoTime();
+        int exitCode = ToolProvider.getSystemDocumentationTool().run(null, null, null, args.toArray(new String[0]));
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        long allocated = allocationSampler.stop();
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        if (exitCode != 0) {
+            System.out.println("ERROR: javadoc tool failed with exit code " + exitCode);
+            System.exit(exitCode);
+        }
+        System.out.println(RESULT_PREFIX + wallMillis + " " + peakHeap / (1024 * 1024) + " " + allocated / (1024 * 1024)
+                + " " + fileSize(outputDir.resolve(MAPPING_FILE)) + " " + fileSize(outputDir.resolve(DOCS_FILE)));
+    }
+
+    private static long fileSize(Path file) {
+        File f = file.toFile();
+        return f.exists() ? f.length() : 0;
+    }
+
+    /**
+     * Sums the bytes allocated by every thread during the run, including the -parallelism fork-join workers and the
+     * pipelined writer threads. Those threads exit when the run ends, so the per-thread counts are sampled while the
+     * doclet runs and the last count seen of each thread is kept; what a thread allocates in the last sampling
+     * interval before it exits is missed. The allocation of the sampler itself is not counted.
+     */
+    private static final class AllocationSampler {
+        private static final long SAMPLE_INTERVAL_MILLIS = 5;
+
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final Map<Long, Long> allocatedBefore = new HashMap<>();
+        // written by the sampler thread only, read after it is joined
+        private final Map<Long, Long> allocatedLast = new HashMap<>();
+        private final Thread sampler;
+        private volatile boolean running = true;
+
+        AllocationSampler() {
+            sampler = new Thread(this::run, "allocation-sampler");
+            sampler.setDaemon(true);
+            sample(allocatedBefore);
+            sampler.start();
+        }
+
+        private void run() {
+            while (running) {
+                sample(allocatedLast);
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void sample(Map<Long, Long> allocated) {
+            long[] threadIds = threads.getAllThreadIds();
+            long[] allocatedBytes = threads.getThreadAllocatedBytes(threadIds);
+            for (int i = 0; i < threadIds.length; i++) {
+                // -1 for threads which exited since their ids were read
+                if (allocatedBytes[i] >= 0 && threadIds[i] != sampler.getId()) {
+                    allocated.merge(threadIds[i], allocatedBytes[i], Math::max);
+                }
+            }
+        }
+
+        /**
+         * Stops sampling and returns the bytes allocated since the sampler was created.
+         */
+        long stop() {
+            running = false;
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sample(allocatedLast);
+            long allocated = 0;
+            for (Map.Entry<Long, Long> thread : allocatedLast.entrySet()) {
+                allocated += thread.getValue() - allocatedBefore.getOrDefault(thread.getKey(), 0L);
+            }
+            return allocated;
+        }
+    }
+}
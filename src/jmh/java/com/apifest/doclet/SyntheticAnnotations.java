@@ -0,0 +1,91 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Name;
+import javax.lang.model.type.DeclaredType;
+
+/**
+ * Annotation mirrors for benchmarking without a compiler. Only the methods used by the
+ * {@link Parser} are answered.
+ */
+final class SyntheticAnnotations {
+
+    private SyntheticAnnotations() {
+    }
+
+    /**
+     * Creates a mirror of an annotation; list values are treated as array attributes.
+     */
+    static AnnotationMirror annotation(String qualifiedName, Map<String, Object> values) {
+        String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+        Element element = proxy(Element.class, Map.of("getSimpleName", name(simpleName)), qualifiedName);
+        DeclaredType type = proxy(DeclaredType.class, Map.of("asElement", element), qualifiedName);
+        Map<ExecutableElement, AnnotationValue> elementValues = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            ExecutableElement attribute = proxy(ExecutableElement.class, Map.of("getSimpleName", name(entry.getKey())), entry.getKey());
+            elementValues.put(attribute, value(entry.getValue()));
+        }
+        return proxy(AnnotationMirror.class, Map.of("getAnnotationType", type, "getElementValues", elementValues), "@" + qualifiedName);
+    }
+
+    private static AnnotationValue value(Object value) {
+        Object actualValue = value;
+        if (value instanceof List<?> list) {
+            List<AnnotationValue> values = new ArrayList<>();
+            for (Object item : list) {
+                values.add(value(item));
+            }
+            actualValue = values;
+        }
+        return proxy(AnnotationValue.class, Map.of("getValue", actualValue), String.valueOf(value));
+    }
+
+    private static Name name(String name) {
+        return proxy(Name.class, Map.of(), name);
+    }
+
+    private static <T> T proxy(Class<T> type, Map<String, Object> answers, String text) {
+        Object proxy = Proxy.newProxyInstance(SyntheticAnnotations.class.getClassLoader(), new Class<?>[] {type},
+                (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "toString":
+                            return text;
+                        case "hashCode":
+                            return System.identityHashCode(self);
+                        case "equals":
+                            return self == args[0];
+                        default:
+                            if (!answers.containsKey(method.getName())) {
+                                throw new UnsupportedOperationException(method.getName());
+                            }
+                            return answers.get(method.getName());
+                    }
+                });
+        return type.cast(proxy);
+    }
+}
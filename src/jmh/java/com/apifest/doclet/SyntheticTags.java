@@ -0,0 +1,97 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates the {@code @apifest.*} tags of a synthetic endpoint, with the same mix of endpoint,
+ * request parameter, result parameter and exception tags as real resource interfaces.
+ */
+final class SyntheticTags {
+
+    private SyntheticTags() {
+    }
+
+    /**
+     * Returns the tags of an endpoint in declaration order.
+     *
+     * @param index
+     *            makes the paths and names of the endpoint unique
+     * @param tagCount
+     *            the number of tags, at least the external and internal endpoint tags are generated
+     * @param payloadSize
+     *            the size in characters of the example request and result, 0 for none
+     */
+    static Map<String, String> endpoint(int index, int tagCount, int payloadSize) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("apifest.external", "/resources" + index + "/{id}/items");
+        tags.put("apifest.internal", "/api/resources" + index + "/{id}/items");
+        put(tags, tagCount, "apifest.scope", "resources_" + (index % 10));
+        put(tags, tagCount, "apifest.auth.type", index % 3 == 0 ? "client-app" : "user");
+        put(tags, tagCount, "apifest.re.id", "\\d+");
+        put(tags, tagCount, "apifest.docs.group", "Resources " + (index % 20));
+        put(tags, tagCount, "apifest.docs.summary", "Lists the items of resource " + index);
+        put(tags, tagCount, "apifest.docs.description", "Lists the items of resource " + index
+                + ". The items are ordered by creation time and paginated with the since and until parameters.");
+        put(tags, tagCount, "apifest.docs.paramsDescription", "Filters applied to the items");
+        put(tags, tagCount, "apifest.docs.resultsDescription", "The matching items");
+        if (payloadSize > 0) {
+            put(tags, tagCount, "apifest.docs.exampleRequest", payload("request", payloadSize));
+            put(tags, tagCount, "apifest.docs.exampleResult", payload("result", payloadSize));
+        }
+        for (int i = 0; tags.size() < tagCount; i++) {
+            String param = "apifest.docs.params.param_" + i;
+            put(tags, tagCount, param, "The param_" + i + " filter");
+            put(tags, tagCount, param + ".type", i % 2 == 0 ? "string" : "integer");
+            put(tags, tagCount, param + ".exampleValue", String.valueOf(i * 7));
+            if (i % 3 == 0) {
+                put(tags, tagCount, param + ".optional", "");
+            }
+            String result = "apifest.docs.results.field_" + i;
+            put(tags, tagCount, result, "The field_" + i + " of an item");
+            put(tags, tagCount, result + ".type", i % 2 == 0 ? "string" : "list");
+            if (i % 4 == 0) {
+                // the condition tag goes last, so that a truncated exception is not documented without a code
+                String exception = "apifest.docs.exceptions.error_" + i;
+                put(tags, tagCount, exception + ".code", "400");
+                put(tags, tagCount, exception + ".description", "Please provide a valid param_" + i);
+                put(tags, tagCount, exception, "The param_" + i + " is invalid");
+            }
+        }
+        return tags;
+    }
+
+    private static void put(Map<String, String> tags, int tagCount, String name, String value) {
+        if (tags.size() < tagCount) {
+            tags.put(name, value);
+        }
+    }
+
+    private static String payload(String name, int size) {
+        StringBuilder payload = new StringBuilder(size + 64);
+        payload.append("{\"").append(name).append("\":[");
+        for (int i = 0; payload.length() < size; i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i).append("\"}");
+        }
+        return payload.append("]}").toString();
+    }
+}
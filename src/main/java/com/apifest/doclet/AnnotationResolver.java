@@ -0,0 +1,107 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.DeclaredType;
+
+/**
+ * Resolves the annotations of the endpoint methods to HTTP methods and to the custom annotations whose
+ * attributes are recorded. Every annotation type and every attribute is resolved once per run, the
+ * attributes to record are hashed once from the customAnnotations option.
+ */
+final class AnnotationResolver {
+    // GET, POST, PUT, DELETE, HEAD, OPTIONS
+    private static final Set<String> HTTP_METHODS = Set.of("GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS");
+    private static final Resolved IGNORED = new Resolved(null, null, null);
+    private static final String NOT_RECORDED = "";
+
+    // qualified attribute names by annotation, an empty set records all the attributes
+    private final Map<String, Set<String>> recordedAttributes = new HashMap<>();
+    private final Map<DeclaredType, Resolved> resolvedTypes = new ConcurrentHashMap<>();
+
+    AnnotationResolver(Map<String, List<String>> customAnnotations) {
+        for (Map.Entry<String, List<String>> entry : customAnnotations.entrySet()) {
+            Set<String> attributes = new HashSet<>();
+            for (String attribute : entry.getValue()) {
+                attributes.add(entry.getKey() + "." + attribute);
+            }
+            recordedAttributes.put(entry.getKey(), attributes);
+        }
+    }
+
+    Resolved resolve(AnnotationMirror annotation) {
+        return resolvedTypes.computeIfAbsent(annotation.getAnnotationType(), this::resolveType);
+    }
+
+    private Resolved resolveType(DeclaredType annotationType) {
+        String simpleName = annotationType.asElement().getSimpleName().toString();
+        if (HTTP_METHODS.contains(simpleName)) {
+            return new Resolved(simpleName, null, null);
+        }
+        String qualifiedName = annotationType.toString();
+        Set<String> attributes = recordedAttributes.get(qualifiedName);
+        if (attributes == null) {
+            return IGNORED;
+        }
+        return new Resolved(null, qualifiedName, attributes);
+    }
+
+    static final class Resolved {
+        private final String httpMethod;
+        private final String qualifiedName;
+        private final Set<String> recordedAttributes;
+        private final Map<ExecutableElement, String> attributeNames = new ConcurrentHashMap<>();
+
+        private Resolved(String httpMethod, String qualifiedName, Set<String> recordedAttributes) {
+            this.httpMethod = httpMethod;
+            this.qualifiedName = qualifiedName;
+            this.recordedAttributes = recordedAttributes;
+        }
+
+        /**
+         * Returns the HTTP method of a JAX-RS method annotation, null for other annotations.
+         */
+        String getHttpMethod() {
+            return httpMethod;
+        }
+
+        boolean isRecorded() {
+            return qualifiedName != null;
+        }
+
+        /**
+         * Returns the qualified name of an attribute, e.g. com.example.Audited.level, or null when it is not recorded.
+         */
+        String attributeName(ExecutableElement attribute) {
+            String attributeName = attributeNames.computeIfAbsent(attribute, element -> {
+                String name = qualifiedName + "." + element.getSimpleName();
+                return recordedAttributes.isEmpty() || recordedAttributes.contains(name) ? name : NOT_RECORDED;
+            });
+            return attributeName.isEmpty() ? null : attributeName;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * A named set of backend settings, e.g. of the dev, staging or prod environment. One mapping file is
+ * written per profile from the same parsed endpoints; the values a profile leaves unset are taken
+ * from the backendHost, backendPort, defaultActionClass and defaultFilterClass options.
+ */
+public class BackendProfile {
+    static final String HOST = "host";
+    static final String PORT = "port";
+    static final String DEFAULT_ACTION = "defaultAction";
+    static final String DEFAULT_FILTER = "defaultFilter";
+    // the profile name is part of the output file names
+    private static final Pattern NAME_PATTERN = Pattern.compile("[\\w-]+");
+
+    private final String name;
+    private String backendHost;
+    private Integer backendPort;
+    private String defaultActionClass;
+    private String defaultFilterClass;
+
+    public BackendProfile(String name, String backendHost, Integer backendPort, String defaultActionClass, String defaultFilterClass) {
+        this.name = name;
+        this.backendHost = backendHost;
+        this.backendPort = backendPort;
+        this.defaultActionClass = defaultActionClass;
+        this.defaultFilterClass = defaultFilterClass;
+    }
+
+    /**
+     * Reads the profiles from a properties file with the keys &lt;profile&gt;.host, &lt;profile&gt;.port,
+     * &lt;profile&gt;.defaultAction and &lt;profile&gt;.defaultFilter.
+     *
+     * @return the profiles by name, in the order of their names
+     */
+    public static Map<String, BackendProfile> load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        Map<String, BackendProfile> profiles = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int separator = key.lastIndexOf('.');
+            String name = separator < 0 ? "" : key.substring(0, separator);
+            if (!NAME_PATTERN.matcher(name).matches()) {
+                throw new IllegalArgumentException("The backend profile key " + key + " is invalid");
+            }
+            BackendProfile profile = profiles.computeIfAbsent(name, profileName -> new BackendProfile(profileName, null, null, null, null));
+            String value = properties.getProperty(key).trim();
+            switch (key.substring(separator + 1)) {
+                case HOST:
+                    profile.backendHost = value;
+                    break;
+                case PORT:
+                    try {
+                        profile.backendPort = Integer.valueOf(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("The port " + value + " of the backend profile " + name + " is not an integer");
+                    }
+                    break;
+                case DEFAULT_ACTION:
+                    profile.defaultActionClass = value;
+                    break;
+                case DEFAULT_FILTER:
+                    profile.defaultFilterClass = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("The backend profile key " + key + " is invalid");
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Returns a copy of this profile with the values it leaves unset taken from the given defaults.
+     */
+    public BackendProfile withDefaults(String backendHost, Integer backendPort, String defaultActionClass, String defaultFilterClass) {
+        return new BackendProfile(name,
+                this.backendHost != null ? this.backendHost : backendHost,
+                this.backendPort != null ? this.backendPort : backendPort,
+                this.defaultActionClass != null ? this.defaultActionClass : defaultActionClass,
+                this.defaultFilterClass != null ? this.defaultFilterClass : defaultFilterClass);
+    }
+
+    /**
+     * Returns the profile name, null for the profile made of the backend options alone.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getBackendHost() {
+        return backendHost;
+    }
+
+    public Integer getBackendPort() {
+        return backendPort;
+    }
+
+    public String getDefaultActionClass() {
+        return defaultActionClass;
+    }
+
+    public String getDefaultFilterClass() {
+        return defaultFilterClass;
+    }
+}
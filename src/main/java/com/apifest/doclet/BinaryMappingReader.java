@@ -0,0 +1,154 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.apifest.api.Mapping;
+import com.apifest.api.Mapping.Backend;
+import com.apifest.api.Mapping.EndpointsWrapper;
+import com.apifest.api.MappingAction;
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.ResponseFilter;
+
+/**
+ * Reads a mapping written by {@link BinaryMappingWriter} into the same {@link Mapping} tree that is
+ * unmarshalled from the mapping XML.
+ * <pre>
+ * try (InputStream in = Files.newInputStream(Paths.get("output_mapping_v1.bin"))) {
+ *     Mapping mapping = BinaryMappingReader.read(in);
+ * }
+ * </pre>
+ */
+public final class BinaryMappingReader {
+    private final DataInputStream in;
+    private String[] strings;
+
+    private BinaryMappingReader(InputStream in) {
+        this.in = new DataInputStream(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+    }
+
+    /**
+     * Reads the mapping, the stream is not closed.
+     *
+     * @throws IOException if the stream is not a binary mapping of a supported format version
+     */
+    public static Mapping read(InputStream in) throws IOException {
+        return new BinaryMappingReader(in).readMapping();
+    }
+
+    private Mapping readMapping() throws IOException {
+        byte[] magic = new byte[BinaryMappingWriter.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, BinaryMappingWriter.MAGIC)) {
+            throw new IOException("not a binary mapping");
+        }
+        int formatVersion = readVarInt();
+        if (formatVersion != BinaryMappingWriter.FORMAT_VERSION) {
+            throw new IOException("unsupported binary mapping format version " + formatVersion);
+        }
+        strings = new String[readVarInt() + 1];
+        for (int i = 1; i < strings.length; i++) {
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        Mapping mapping = new Mapping();
+        mapping.setVersion(readString());
+        String backendHost = readString();
+        mapping.setBackend(new Backend(backendHost, readVarInt()));
+        int endpointCount = readVarInt();
+        List<MappingEndpoint> endpoints = new ArrayList<>(endpointCount);
+        for (int i = 0; i < endpointCount; i++) {
+            endpoints.add(readEndpoint());
+        }
+        EndpointsWrapper endpointsWrapper = new EndpointsWrapper();
+        endpointsWrapper.setEndpoints(endpoints);
+        mapping.setEndpointsWrapper(endpointsWrapper);
+        return mapping;
+    }
+
+    private MappingEndpoint readEndpoint() throws IOException {
+        MappingEndpoint endpoint = new MappingEndpoint();
+        endpoint.setExternalEndpoint(readString());
+        endpoint.setInternalEndpoint(readString());
+        endpoint.setMethod(readString());
+        endpoint.setAuthType(readString());
+        endpoint.setScope(readString());
+        String actionName = readString();
+        String actionClassName = readString();
+        if (actionName != null || actionClassName != null) {
+            MappingAction action = new MappingAction();
+            action.setName(actionName);
+            action.setActionClassName(actionClassName);
+            endpoint.setAction(action);
+        }
+        String filterName = readString();
+        String filterClassName = readString();
+        if (filterName != null || filterClassName != null) {
+            ResponseFilter filter = new ResponseFilter();
+            filter.setName(filterName);
+            filter.setFilterClassName(filterClassName);
+            endpoint.setFilters(filter);
+        }
+        endpoint.setVarExpression(readString());
+        endpoint.setVarName(readString());
+        endpoint.setBackendHost(readString());
+        int backendPort = readVarInt();
+        if (backendPort > 0) {
+            endpoint.setBackendPort(backendPort - 1);
+        }
+        int customPropertyCount = readVarInt();
+        if (customPropertyCount > 0) {
+            Map<String, String> customProperties = new TreeMap<>();
+            for (int i = 0; i < customPropertyCount; i++) {
+                customProperties.put(readString(), readString());
+            }
+            endpoint.setCustomProperties(customProperties);
+        }
+        return endpoint;
+    }
+
+    private String readString() throws IOException {
+        int reference = readVarInt();
+        if (reference >= strings.length) {
+            throw new IOException("invalid string reference " + reference);
+        }
+        return strings[reference];
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed variable-length integer");
+    }
+}
@@ -0,0 +1,213 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.apifest.api.MappingAction;
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.ResponseFilter;
+
+/**
+ * Writes the mapping in a compact binary form, read back with {@link BinaryMappingReader}.
+ * <p>
+ * The file starts with the {@link #MAGIC} bytes and the {@link #FORMAT_VERSION}, followed by a table of all
+ * the distinct strings, the mapping version, the backend and the endpoints. Strings are referenced by their
+ * index in the table plus one, zero stands for null. All numbers are unsigned variable-length integers,
+ * seven bits per byte with the high bit set on all bytes but the last. Every endpoint is written as the
+ * references of its external endpoint, internal endpoint, method, auth type, scope, action name, action class,
+ * filter name, filter class, var expression, var name and backend host, then its backend port plus one
+ * (zero for none) and the number and references of its custom property names and values.
+ * <p>
+ * The string table is only known once all the endpoints are handed over, so as an {@link EndpointWriter} the
+ * visible endpoints are held in memory and the file is written on close. Endpoints that can be iterated twice
+ * are written with {@link #write(OutputStream, String, String, int, Iterable)} instead, which only holds the
+ * distinct strings.
+ */
+public class BinaryMappingWriter implements EndpointWriter {
+    static final byte[] MAGIC = {'A', 'F', 'M', 'B'};
+    static final int FORMAT_VERSION = 1;
+    static final int NULL_REFERENCE = 0;
+
+    private final DataOutputStream out;
+    private final String version;
+    private final String backendHost;
+    private final int backendPort;
+    private final List<MappingEndpoint> endpoints = new ArrayList<>();
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    public BinaryMappingWriter(OutputStream out, String version, String backendHost, int backendPort) {
+        this.out = new DataOutputStream(out);
+        this.version = version;
+        this.backendHost = backendHost;
+        this.backendPort = backendPort;
+        intern(version);
+        intern(backendHost);
+    }
+
+    /**
+     * Writes the endpoints in two passes over them: the first one collects the string table, the second one
+     * writes the endpoints one at a time. The stream is closed.
+     */
+    public static void write(OutputStream out, String version, String backendHost, int backendPort,
+            Iterable<ParsedEndpoint> parsedEndpoints) throws IOException {
+        BinaryMappingWriter writer = new BinaryMappingWriter(out, version, backendHost, backendPort);
+        try {
+            int count = 0;
+            for (ParsedEndpoint parsed : parsedEndpoints) {
+                MappingEndpoint endpoint = visibleEndpoint(parsed);
+                if (endpoint != null) {
+                    writer.internAll(endpoint);
+                    count++;
+                }
+            }
+            writer.writeHeader(count);
+            for (ParsedEndpoint parsed : parsedEndpoints) {
+                MappingEndpoint endpoint = visibleEndpoint(parsed);
+                if (endpoint != null) {
+                    writer.writeEndpoint(endpoint);
+                }
+            }
+            writer.out.flush();
+        } finally {
+            writer.out.close();
+        }
+    }
+
+    private static MappingEndpoint visibleEndpoint(ParsedEndpoint parsed) {
+        MappingEndpoint endpoint = parsed.getMappingEndpoint();
+        return endpoint == null || endpoint.isHidden() ? null : endpoint;
+    }
+
+    @Override
+    public void write(ParsedEndpoint parsed) throws IOException {
+        MappingEndpoint endpoint = visibleEndpoint(parsed);
+        if (endpoint == null) {
+            return;
+        }
+        endpoints.add(endpoint);
+        internAll(endpoint);
+    }
+
+    private void internAll(MappingEndpoint endpoint) {
+        for (String value : stringsOf(endpoint)) {
+            intern(value);
+        }
+        if (endpoint.getCustomProperties() != null) {
+            for (Map.Entry<String, String> property : endpoint.getCustomProperties().entrySet()) {
+                intern(property.getKey());
+                intern(property.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeHeader(endpoints.size());
+            for (MappingEndpoint endpoint : endpoints) {
+                writeEndpoint(endpoint);
+            }
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes everything before the endpoints: the magic bytes, the format version, the string table, the mapping
+     * version, the backend and the number of endpoints.
+     */
+    private void writeHeader(int endpointCount) throws IOException {
+        out.write(MAGIC);
+        writeVarInt(FORMAT_VERSION);
+        writeVarInt(strings.size());
+        for (String value : strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+        writeReference(version);
+        writeReference(backendHost);
+        writeVarInt(backendPort);
+        writeVarInt(endpointCount);
+    }
+
+    private void writeEndpoint(MappingEndpoint endpoint) throws IOException {
+        for (String value : stringsOf(endpoint)) {
+            writeReference(value);
+        }
+        writeVarInt(endpoint.getBackendPort() == null ? 0 : endpoint.getBackendPort() + 1);
+        Map<String, String> customProperties = endpoint.getCustomProperties();
+        if (customProperties == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(customProperties.size());
+        for (Map.Entry<String, String> property : customProperties.entrySet()) {
+            writeReference(property.getKey());
+            writeReference(property.getValue());
+        }
+    }
+
+    /**
+     * The string fields of an endpoint, in the order of the format.
+     */
+    private static String[] stringsOf(MappingEndpoint endpoint) {
+        MappingAction action = endpoint.getAction();
+        ResponseFilter filter = endpoint.getFilter();
+        return new String[] {
+                endpoint.getExternalEndpoint(),
+                endpoint.getInternalEndpoint(),
+                endpoint.getMethod(),
+                endpoint.getAuthType(),
+                endpoint.getScope(),
+                action == null ? null : action.getName(),
+                action == null ? null : action.getActionClassName(),
+                filter == null ? null : filter.getName(),
+                filter == null ? null : filter.getFilterClassName(),
+                endpoint.getVarExpression(),
+                endpoint.getVarName(),
+                endpoint.getBackendHost()
+        };
+    }
+
+    private void intern(String value) {
+        if (value != null) {
+            strings.putIfAbsent(value, strings.size() + 1);
+        }
+    }
+
+    private void writeReference(String value) throws IOException {
+        writeVarInt(value == null ? NULL_REFERENCE : strings.get(value));
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+/**
+ * Contains the ways the mapping and documentation files can be compressed.
+ */
+public enum Compression {
+    // the files are written as they are
+    NONE("none"),
+    // the files are written gzip compressed, with the .gz extension appended to their name
+    GZIP("gzip"),
+    // the files are written as they are and with a gzip compressed .gz sibling, e.g. for static serving
+    GZIP_SIBLING("gzipSibling");
+    private String value;
+
+    private Compression(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    public static Compression fromString(String value) {
+        Compression[] values = Compression.values();
+        for (Compression compression : values) {
+            if (compression.getValue().equalsIgnoreCase(value)) {
+                return compression;
+            }
+        }
+        return null;
+    }
+}
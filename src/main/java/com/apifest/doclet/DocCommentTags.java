@@ -0,0 +1,66 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the apifest block tags from the text of a doc comment, as returned by
+ * {@link javax.lang.model.util.Elements#getDocComment}, where no doc comment tree is available.
+ * A block tag starts with {@code @} at the beginning of a line and its value runs up to the next
+ * block tag; like with the doclet, the first occurrence of a tag wins.
+ */
+final class DocCommentTags {
+    private static final String APIFEST_PREFIX = "apifest.";
+
+    private DocCommentTags() {
+    }
+
+    static Map<String, String> parse(String docComment) {
+        Map<String, String> tagMap = new TreeMap<>();
+        if (docComment == null) {
+            return tagMap;
+        }
+        String name = null;
+        StringBuilder value = new StringBuilder();
+        for (String line : docComment.split("\n", -1)) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("@")) {
+                addTag(tagMap, name, value);
+                int nameEnd = 1;
+                while (nameEnd < trimmed.length() && !Character.isWhitespace(trimmed.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                name = trimmed.substring(1, nameEnd);
+                value.setLength(0);
+                value.append(trimmed, nameEnd, trimmed.length());
+            } else if (name != null) {
+                value.append('\n').append(line);
+            }
+        }
+        addTag(tagMap, name, value);
+        return tagMap;
+    }
+
+    private static void addTag(Map<String, String> tagMap, String name, StringBuilder value) {
+        if (name != null && name.startsWith(APIFEST_PREFIX)) {
+            tagMap.putIfAbsent(name, value.toString().trim());
+        }
+    }
+}
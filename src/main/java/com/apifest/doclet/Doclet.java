@@ -19,14 +19,28 @@ package com.apifest.doclet;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
@@ -34,30 +48,24 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
 import javax.tools.DocumentationTool;
 import javax.tools.ToolProvider;
 
 import com.apifest.api.Mapping;
 import com.apifest.api.Mapping.Backend;
 import com.apifest.api.Mapping.EndpointsWrapper;
-import com.apifest.api.MappingDocumentation;
 import com.apifest.api.MappingEndpoint;
 import com.apifest.api.MappingEndpointDocumentation;
 import com.apifest.doclet.option.*;
 import com.fasterxml.jackson.core.JsonGenerationException;
-import com.fasterxml.jackson.databind.AnnotationIntrospector;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.type.TypeFactory;
-import com.fasterxml.jackson.module.jakarta.xmlbind.JakartaXmlBindAnnotationIntrospector;
 import com.sun.source.doctree.DocCommentTree;
 import com.sun.source.doctree.DocTree;
 import com.sun.source.doctree.UnknownBlockTagTree;
 import com.sun.source.util.SimpleDocTreeVisitor;
+import com.sun.source.util.TreePath;
 import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.PropertyException;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jdk.javadoc.doclet.DocletEnvironment;
 import jdk.javadoc.doclet.Reporter;
@@ -81,12 +89,37 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
     MappingVersionOption mappingVersionOption = new MappingVersionOption();
     ModeOption modeOption = new ModeOption();
     CustomAnnotationOption customAnnotationOption = new CustomAnnotationOption();
+    ParallelismOption parallelismOption = new ParallelismOption();
+    CacheDirOption cacheDirOption = new CacheDirOption();
+    MappingWriterOption mappingWriterOption = new MappingWriterOption();
+    WatchOption watchOption = new WatchOption();
+    MetricsFileOption metricsFileOption = new MetricsFileOption();
+    ShardByOption shardByOption = new ShardByOption();
+    RouteIndexFilenameOption routeIndexFilenameOption = new RouteIndexFilenameOption();
+    RegexCheckOption regexCheckOption = new RegexCheckOption();
+    PreviousMappingOption previousMappingOption = new PreviousMappingOption();
+    BackendProfilesOption backendProfilesOption = new BackendProfilesOption();
+    IncludePackagesOption includePackagesOption = new IncludePackagesOption();
+    ExcludePackagesOption excludePackagesOption = new ExcludePackagesOption();
+    SpillThresholdOption spillThresholdOption = new SpillThresholdOption();
+    ManifestFilenameOption manifestFilenameOption = new ManifestFilenameOption();
+    CompressionOption compressionOption = new CompressionOption();
+    UnorderedOption unorderedOption = new UnorderedOption();
     private final Set<Option> supportedOptions = Set.of(
             applicationPathOption, backendHostOption, backendPortOption,
             defaultActionClassOption, defaultFilterClassOption, mappingDocsFilenameOption,
             mappingFilenameOption, mappingVersionOption, modeOption,
-            customAnnotationOption
+            customAnnotationOption, parallelismOption, cacheDirOption,
+            mappingWriterOption, watchOption, metricsFileOption,
+            shardByOption, routeIndexFilenameOption, regexCheckOption,
+            previousMappingOption, backendProfilesOption, includePackagesOption,
+            excludePackagesOption, spillThresholdOption, manifestFilenameOption,
+            compressionOption, unorderedOption
     );
+    private EndpointCache endpointCache;
+    private DocletMetrics metrics = new DocletMetrics(false);
+    private OutputFiles outputFiles = new OutputFiles();
+    private AnnotationResolver annotationResolver;
 
     @Override
     public void init(Locale locale, Reporter reporter) {
@@ -109,6 +142,7 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
     }
 
     private static final String APIFEST_EXTERNAL = "apifest.external";
+    static final String APIFEST_EXTERNAL_TAG = "@" + APIFEST_EXTERNAL;
 
     // returned when a variable is missing in the properties file and then
     // passed to the Doclet as env variable
@@ -117,6 +151,13 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
     // valid values: user or client-app
 
     private static final String DEFAULT_MAPPING_NAME = "output_mapping_%s.xml";
+    private static final String DEFAULT_BINARY_MAPPING_NAME = "output_mapping_%s.bin";
+    private static final String VERSION_PLACEHOLDER = "{version}";
+    private static final String PROFILE_PLACEHOLDER = "{profile}";
+    // interfaces parsed per thread before the parsed endpoints are handed to the store
+    private static final int PARALLEL_BATCH_PER_THREAD = 64;
+    // parsed endpoints waiting for each writer when the output files are written while parsing
+    private static final int PIPELINE_CAPACITY = 1024;
 
     /**
      * Starts the doclet from the command line.
@@ -145,6 +186,16 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
 
         String[] javadocArgs = docletArgs.split("\\s+");
         DocumentationTool javadocTool = ToolProvider.getSystemDocumentationTool();
+        if (DocletWatcher.isWatch(javadocArgs)) {
+            try {
+                new DocletWatcher(javadocTool, javadocArgs).watch();
+            } catch (IOException e) {
+                e.printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
         int result = javadocTool.run(null, null, null, javadocArgs);
 
         if (result != 0) {
@@ -156,46 +207,604 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
         if (!validateConfiguration()) {
             return false;
         }
-        List<ParsedEndpoint> parsedEndpoints = new ArrayList<>();
-        for (Element element : docEnv.getIncludedElements()) {
-            if (element.getKind() != ElementKind.INTERFACE) {
-                continue;
+        String metricsFile = metricsFileOption.getMetricsFile();
+        metrics = new DocletMetrics(metricsFile != null && !metricsFile.isEmpty() && !NULL.equalsIgnoreCase(metricsFile));
+        metrics.recordJavadocStartup();
+        try {
+            return generate(docEnv);
+        } finally {
+            if (metrics.isEnabled()) {
+                writeMetricsFile(metricsFile);
             }
-            TypeElement classElement = (TypeElement) element;
-            for (Element enclosedElement : classElement.getEnclosedElements()) {
-                if (!(enclosedElement instanceof ExecutableElement methodElement)) {
-                    continue;
-                }
-                Map<String, String> tags = extractTags(docEnv, methodElement);
-                ParsedEndpoint parsed;
-                try {
-                    parsed = parseEndpoint(tags, docEnv.getElementUtils().getAllAnnotationMirrors(enclosedElement));
-                } catch (ParseException e) {
-                    throw new RuntimeException(e);
-                }
-                if (parsed != null) {
-                    parsedEndpoints.add(parsed);
-                }
+        }
+    }
+
+    private boolean generate(DocletEnvironment docEnv) {
+        List<TypeElement> interfaces = new ArrayList<>();
+        PackageFilter packageFilter = getPackageFilter();
+        for (TypeElement typeElement : ElementFilter.typesIn(docEnv.getIncludedElements())) {
+            // the interfaces of skipped packages are dropped before any of their methods is looked at
+            if (typeElement.getKind() == ElementKind.INTERFACE
+                    && packageFilter.accept(docEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString())) {
+                interfaces.add(typeElement);
             }
         }
-        EndpointComparator.orderEndpoints(parsedEndpoints);
+        // the included elements follow the order the source files were listed in, which depends on the file system
+        interfaces.sort(Comparator.comparing(typeElement -> typeElement.getQualifiedName().toString()));
+        String cacheDir = cacheDirOption.getCacheDir();
+        if (cacheDir != null && !cacheDir.isEmpty() && !NULL.equalsIgnoreCase(cacheDir)) {
+            try {
+                endpointCache = new EndpointCache(Paths.get(cacheDir), optionsFingerprint());
+            } catch (IOException e) {
+                System.out.println("WARNING: cannot use cache directory " + cacheDir + ", " + e.getMessage());
+            }
+        }
+        metrics.increment(DocletMetrics.Counter.INTERFACES, interfaces.size());
+        if (isPipelined()) {
+            return generatePipelined(docEnv, interfaces);
+        }
+        try (EndpointStore parsedEndpoints = createEndpointStore()) {
+            DocletMetrics.Timer parseTimer = metrics.start(DocletMetrics.Phase.PARSE_INTERFACES);
+            parseInterfaces(docEnv, interfaces, parsedEndpoints::add);
+            parseTimer.stop();
+            if (endpointCache != null) {
+                endpointCache.prune();
+            }
+            return generate(parsedEndpoints);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("ERROR: cannot store parsed endpoints, " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether the output files are written while the interfaces are parsed: only with -unordered, since
+     * the endpoints are not ordered then, and when they are written once, for a single mapping version without
+     * backend profiles or previous mapping.
+     */
+    private boolean isPipelined() {
+        String previousMapping = previousMappingOption.getPreviousMapping();
+        if (mappingVersionOption.getMappingVersions().size() > 1 || !backendProfilesOption.getBackendProfiles().isEmpty()
+                || previousMapping != null && !previousMapping.isEmpty() && !NULL.equalsIgnoreCase(previousMapping)) {
+            return false;
+        }
+        return unorderedOption.isUnordered();
+    }
+
+    /**
+     * Parses the interfaces and writes the output files at the same time. The parsed endpoints flow through
+     * bounded queues to one writer thread per output file, in the order they are parsed. The output files are
+     * only replaced once all the writers succeeded; invalid variable expressions, a parsing failure or a failed
+     * writer leave the existing output files as they are.
+     */
+    private boolean generatePipelined(DocletEnvironment docEnv, List<TypeElement> interfaces) {
+        String mappingVersion = mappingVersionOption.getMappingVersion();
+        BackendProfile profile = getBackendProfiles().get(0);
+        String mappingFile = versionedFilename(mappingFilenameOption.getMappingFilename(), mappingVersion);
+        EndpointPipeline pipeline = new EndpointPipeline(PIPELINE_CAPACITY);
+        List<Callable<Void>> writers = new ArrayList<>();
+        if (modeOption.getDocletModes().contains(DocletMode.DOC)) {
+            String docsFile = versionedFilename(mappingDocsFilenameOption.getMappingDocsFilename(), mappingVersion);
+            addWriter(pipeline, writers, endpoints -> generateDocsFile(endpoints, docsFile, mappingVersion));
+        }
+        if (modeOption.getDocletModes().contains(DocletMode.MAPPING)) {
+            addWriter(pipeline, writers, endpoints -> generateMappingFile(endpoints, mappingFile, mappingVersion, profile));
+        }
+        if (modeOption.getDocletModes().contains(DocletMode.BINARY)) {
+            addWriter(pipeline, writers, endpoints -> generateBinaryMappingFile(endpoints, mappingFile, mappingVersion, profile));
+        }
+        String routeIndexFile = routeIndexFilenameOption.getRouteIndexFilename();
+        if (routeIndexFile != null && !routeIndexFile.isEmpty() && !NULL.equalsIgnoreCase(routeIndexFile)
+                && (modeOption.getDocletModes().contains(DocletMode.MAPPING) || modeOption.getDocletModes().contains(DocletMode.BINARY))) {
+            String indexFile = versionedFilename(routeIndexFile, mappingVersion);
+            addWriter(pipeline, writers, endpoints -> generateRouteIndexFile(endpoints, indexFile, mappingVersion));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, writers.size()));
+        outputFiles.defer();
         try {
-            if (modeOption.getDocletModes().contains(DocletMode.DOC)) {
-                generateDocsFile(parsedEndpoints, mappingDocsFilenameOption.getMappingDocsFilename());
+            List<Future<Void>> results = new ArrayList<>();
+            for (Callable<Void> writer : writers) {
+                results.add(executor.submit(writer));
             }
-            if (modeOption.getDocletModes().contains(DocletMode.MAPPING)) {
-                generateMappingFile(parsedEndpoints, mappingFilenameOption.getMappingFilename());
+            Set<String> checked = new HashSet<>();
+            AtomicBoolean valid = new AtomicBoolean(true);
+            try {
+                DocletMetrics.Timer parseTimer = metrics.start(DocletMetrics.Phase.PARSE_INTERFACES);
+                parseInterfaces(docEnv, interfaces, parsed -> {
+                    metrics.increment(DocletMetrics.Counter.ENDPOINTS, 1);
+                    parsed.applyVersion(mappingVersion);
+                    if (!checkVarExpressions(parsed, checked)) {
+                        valid.set(false);
+                    }
+                    pipeline.publish(parsed);
+                });
+                parseTimer.stop();
+            } catch (IOException | RuntimeException e) {
+                pipeline.abort();
+                throw e;
+            }
+            if (endpointCache != null) {
+                endpointCache.prune();
+            }
+            if (!valid.get()) {
+                pipeline.abort();
+                return false;
+            }
+            pipeline.finish();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+            writeManifest();
+            commitOutputs();
+        } catch (InterruptedException e) {
+            pipeline.abort();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            return reportOutputError(e.getCause());
+        } catch (IOException e) {
+            return reportOutputError(e);
+        } finally {
+            awaitWriters(executor);
+            discardDeferredOutputs();
+        }
+        return true;
+    }
+
+    /**
+     * Drops the output files of a failed run; a no-op once they are committed.
+     */
+    private void discardDeferredOutputs() {
+        try {
+            outputFiles.discardDeferred();
+        } catch (IOException e) {
+            System.out.println("WARNING: cannot delete temporary output files, " + e.getMessage());
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        String manifestFile = manifestFilenameOption.getManifestFilename();
+        if (manifestFile != null && !manifestFile.isEmpty() && !NULL.equalsIgnoreCase(manifestFile)) {
+            outputFiles.writeManifest(Paths.get(manifestFile));
+            metrics.recordOutput(manifestFile);
+        }
+    }
+
+    private void commitOutputs() throws IOException {
+        outputFiles.commitDeferred();
+        metrics.increment(DocletMetrics.Counter.UNCHANGED_OUTPUTS, outputFiles.getUnchangedCount());
+    }
+
+    /**
+     * Subscribes a writer to the pipeline; the writer stops taking endpoints when it is done or failed.
+     */
+    private static void addWriter(EndpointPipeline pipeline, List<Callable<Void>> writers, OutputWriter writer) {
+        EndpointPipeline.Subscription endpoints = pipeline.subscribe();
+        writers.add(() -> {
+            try {
+                writer.write(endpoints);
+            } finally {
+                endpoints.close();
             }
-        } catch (JsonGenerationException e) {
+            return null;
+        });
+    }
+
+    private static void awaitWriters(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            // the writers end soon once the pipeline is finished or aborted, aborted writers remove their temporary files
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prints the error of a failed writer, the same way for the pipelined and the sequential output.
+     */
+    private static boolean reportOutputError(Throwable e) {
+        if (e instanceof JsonGenerationException) {
             System.out.println("ERROR: cannot create mapping documentation file, " + e.getMessage());
-            return false;
-        } catch (IOException | JAXBException e) {
+        } else if (e instanceof IOException || e instanceof JAXBException) {
             System.out.println("ERROR: cannot create mapping file, " + e.getMessage());
-            return false;
+        } else if (e instanceof UncheckedIOException) {
+            System.out.println("ERROR: cannot read spilled endpoints, " + e.getCause().getMessage());
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else {
+            throw new RuntimeException(e);
+        }
+        return false;
+    }
+
+    /**
+     * Writes an output file from the parsed endpoints.
+     */
+    private interface OutputWriter {
+        void write(ParsedEndpoints parsedEndpoints) throws IOException, JAXBException;
+    }
+
+    /**
+     * Receives the parsed endpoints in the order of the interfaces.
+     */
+    private interface EndpointSink {
+        void add(ParsedEndpoint parsed) throws IOException;
+    }
+
+    /**
+     * Returns an endpoint store that keeps at most -spillThreshold endpoints in memory, in parse order with -unordered.
+     */
+    EndpointStore createEndpointStore() {
+        return new EndpointStore(spillThresholdOption.getSpillThreshold(), !unorderedOption.isUnordered());
+    }
+
+    /**
+     * Checks and orders the parsed endpoints and writes the output files of each mapping version.
+     * Shared by the doclet and the {@link MappingProcessor}.
+     */
+    boolean generate(EndpointStore parsedEndpoints) {
+        metrics.increment(DocletMetrics.Counter.ENDPOINTS, parsedEndpoints.size());
+        List<String> mappingVersions = mappingVersionOption.getMappingVersions();
+        // the output files are only replaced once all of them are written
+        outputFiles.defer();
+        try {
+            parsedEndpoints.apply(mappingVersions.get(0), null);
+            if (!checkVarExpressions(parsedEndpoints)) {
+                return false;
+            }
+            DocletMetrics.Timer orderTimer = metrics.start(DocletMetrics.Phase.ORDER_ENDPOINTS);
+            parsedEndpoints.order();
+            orderTimer.stop();
+            // the endpoints are parsed and ordered once, only the version prefix differs between the versions
+            for (String mappingVersion : mappingVersions) {
+                parsedEndpoints.apply(mappingVersion, null);
+                generateOutputFiles(parsedEndpoints, mappingVersion);
+            }
+            writeManifest();
+            commitOutputs();
+        } catch (IOException | JAXBException | UncheckedIOException e) {
+            return reportOutputError(e);
+        } finally {
+            discardDeferredOutputs();
         }
         return true;
     }
 
+    private void generateOutputFiles(EndpointStore parsedEndpoints, String mappingVersion) throws IOException, JAXBException {
+        String mappingFile = versionedFilename(mappingFilenameOption.getMappingFilename(), mappingVersion);
+        if (modeOption.getDocletModes().contains(DocletMode.DOC)) {
+            generateDocsFile(parsedEndpoints, versionedFilename(mappingDocsFilenameOption.getMappingDocsFilename(), mappingVersion),
+                    mappingVersion);
+        }
+        for (BackendProfile profile : getBackendProfiles()) {
+            String profileMappingFile = mappingFile;
+            if (profile.getName() != null) {
+                // the endpoints are parsed with the defaults of the backend options, resolve those of the profile
+                parsedEndpoints.apply(mappingVersion, profile);
+                if (mappingFile == null || mappingFile.isEmpty() || NULL.equalsIgnoreCase(mappingFile)) {
+                    profileMappingFile = String.format(DEFAULT_MAPPING_NAME, mappingVersion);
+                }
+                profileMappingFile = profileFilename(profileMappingFile, profile);
+            }
+            if (modeOption.getDocletModes().contains(DocletMode.MAPPING)) {
+                // read before the mapping file, which may be the previous one, is overwritten
+                Map<String, MappingEndpoint> previousEndpoints = readPreviousMapping(mappingVersion, profile);
+                generateMappingFile(parsedEndpoints, profileMappingFile, mappingVersion, profile);
+                if (previousEndpoints != null) {
+                    generateDeltaFile(parsedEndpoints, previousEndpoints, profileMappingFile, mappingVersion);
+                }
+            }
+            if (modeOption.getDocletModes().contains(DocletMode.BINARY)) {
+                generateBinaryMappingFile(parsedEndpoints, profileMappingFile, mappingVersion, profile);
+            }
+        }
+        String routeIndexFile = routeIndexFilenameOption.getRouteIndexFilename();
+        if (routeIndexFile != null && !routeIndexFile.isEmpty() && !NULL.equalsIgnoreCase(routeIndexFile)
+                && (modeOption.getDocletModes().contains(DocletMode.MAPPING) || modeOption.getDocletModes().contains(DocletMode.BINARY))) {
+            generateRouteIndexFile(parsedEndpoints, versionedFilename(routeIndexFile, mappingVersion), mappingVersion);
+        }
+    }
+
+    /**
+     * Returns the backend profiles with the values they leave unset taken from the backend options,
+     * or a single unnamed profile made of the backend options when no profiles are set.
+     */
+    private List<BackendProfile> getBackendProfiles() {
+        BackendProfile options = new BackendProfile(null, backendHostOption.getBackendHost(), backendPortOption.getBackendPort(),
+                defaultActionClassOption.getDefaultActionClass(), defaultFilterClassOption.getDefaultFilterClass());
+        Map<String, BackendProfile> backendProfiles = backendProfilesOption.getBackendProfiles();
+        if (backendProfiles.isEmpty()) {
+            return List.of(options);
+        }
+        List<BackendProfile> profiles = new ArrayList<>();
+        for (BackendProfile profile : backendProfiles.values()) {
+            profiles.add(profile.withDefaults(options.getBackendHost(), options.getBackendPort(),
+                    options.getDefaultActionClass(), options.getDefaultFilterClass()));
+        }
+        return profiles;
+    }
+
+    /**
+     * Returns the name of an output file of the given profile. A {profile} placeholder is replaced with the
+     * profile name, otherwise the name is appended to the base name, e.g. all-mappings_prod.xml.
+     */
+    private String profileFilename(String filename, BackendProfile profile) {
+        if (filename == null || filename.isEmpty() || NULL.equalsIgnoreCase(filename) || profile.getName() == null) {
+            return filename;
+        }
+        if (filename.contains(PROFILE_PLACEHOLDER)) {
+            return filename.replace(PROFILE_PLACEHOLDER, profile.getName());
+        }
+        return appendToBaseName(filename, profile.getName());
+    }
+
+    /**
+     * Returns the name of an output file of the given version. A {version} placeholder is replaced with the version;
+     * otherwise, when several versions are generated, the version is appended to the base name,
+     * e.g. all-mappings_v2.xml.
+     */
+    private String versionedFilename(String filename, String mappingVersion) {
+        if (filename == null || filename.isEmpty() || NULL.equalsIgnoreCase(filename)) {
+            return filename;
+        }
+        if (filename.contains(VERSION_PLACEHOLDER)) {
+            return filename.replace(VERSION_PLACEHOLDER, mappingVersion);
+        }
+        if (mappingVersionOption.getMappingVersions().size() < 2) {
+            return filename;
+        }
+        return appendToBaseName(filename, mappingVersion);
+    }
+
+    private static String appendToBaseName(String filename, String suffix) {
+        int nameStart = filename.lastIndexOf(File.separatorChar) + 1;
+        int extensionStart = filename.lastIndexOf('.');
+        if (extensionStart <= nameStart) {
+            return filename + "_" + suffix;
+        }
+        return filename.substring(0, extensionStart) + "_" + suffix + filename.substring(extensionStart);
+    }
+
+    /**
+     * Compiles the variable expressions of all endpoints, each distinct expression once. Invalid expressions
+     * fail the build, expressions with exponential backtracking only with -regexCheck fail.
+     */
+    private boolean checkVarExpressions(Iterable<ParsedEndpoint> parsedEndpoints) {
+        Set<String> checked = new HashSet<>();
+        boolean valid = true;
+        for (ParsedEndpoint parsed : parsedEndpoints) {
+            valid &= checkVarExpressions(parsed, checked);
+        }
+        return valid;
+    }
+
+    /**
+     * Compiles the variable expressions of the endpoint that are not in checked yet and adds them to it.
+     */
+    private boolean checkVarExpressions(ParsedEndpoint parsed, Set<String> checked) {
+        boolean valid = true;
+        if (parsed.getVarExpressions() != null) {
+            // the expressions as written in the tags, the varExpression of the mapping joins them with spaces
+            for (Map.Entry<String, String> varExpression : parsed.getVarExpressions().entrySet()) {
+                if (!checked.add(varExpression.getValue())) {
+                    continue;
+                }
+                RegexAnalyzer.Result result = RegexAnalyzer.analyze(varExpression.getValue());
+                String tag = "apifest.re." + varExpression.getKey() + " of " + parsed.getMappingEndpoint().getExternalEndpoint();
+                if (!result.isValid()) {
+                    System.out.println("ERROR: invalid expression " + varExpression.getValue() + " in " + tag + ", " + result.getError());
+                    valid = false;
+                } else if (!result.isKnown()) {
+                    System.out.println("WARNING: expression " + varExpression.getValue() + " in " + tag
+                            + " cannot be checked for catastrophic backtracking (" + result.getReason() + ")");
+                } else if (result.isRisky()) {
+                    boolean fail = regexCheckOption.isFail() && result.getComplexity() == RegexAnalyzer.Complexity.EXPONENTIAL;
+                    System.out.println((fail ? "ERROR: " : "WARNING: ") + "expression " + varExpression.getValue()
+                            + " in " + tag + " is prone to catastrophic backtracking (" + result.getReason()
+                            + "), estimated cost per match " + result.getEstimatedCost());
+                    valid &= !fail;
+                }
+            }
+        }
+        return valid;
+    }
+
+    private void writeMetricsFile(String metricsFile) {
+        try {
+            metrics.write(Paths.get(metricsFile));
+        } catch (IOException e) {
+            System.out.println("WARNING: cannot write metrics file " + metricsFile + ", " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses the endpoints of all interfaces into the store. When parallelism is greater than one the
+     * interfaces are parsed in a fork-join pool, a batch of interfaces at a time so that the store can
+     * spill between the batches; the results are added in the order of the interfaces, so the output
+     * does not depend on the number of threads.
+     */
+    private void parseInterfaces(DocletEnvironment docEnv, List<TypeElement> interfaces, EndpointSink parsedEndpoints)
+            throws IOException {
+        int parallelism = parallelismOption.getParallelism();
+        if (parallelism > 1 && interfaces.size() > 1) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                int batchSize = parallelism * PARALLEL_BATCH_PER_THREAD;
+                for (int start = 0; start < interfaces.size(); start += batchSize) {
+                    List<TypeElement> batch = interfaces.subList(start, Math.min(start + batchSize, interfaces.size()));
+                    List<List<ParsedEndpoint>> parsedPerInterface = pool.submit(() -> batch.parallelStream()
+                            .map(classElement -> parseInterface(docEnv, classElement))
+                            .collect(Collectors.toList())).get();
+                    for (List<ParsedEndpoint> parsed : parsedPerInterface) {
+                        for (ParsedEndpoint endpoint : parsed) {
+                            parsedEndpoints.add(endpoint);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (TypeElement classElement : interfaces) {
+                for (ParsedEndpoint endpoint : parseInterface(docEnv, classElement)) {
+                    parsedEndpoints.add(endpoint);
+                }
+            }
+        }
+    }
+
+    private List<ParsedEndpoint> parseInterface(DocletEnvironment docEnv, TypeElement classElement) {
+        InterfaceParsedEvent event = new InterfaceParsedEvent();
+        event.begin();
+        List<ParsedEndpoint> parsedEndpoints = loadOrParseInterface(docEnv, classElement, event);
+        if (event.shouldCommit()) {
+            event.interfaceName = classElement.getQualifiedName().toString();
+            event.endpointCount = parsedEndpoints.size();
+            event.commit();
+        }
+        return parsedEndpoints;
+    }
+
+    private List<ParsedEndpoint> loadOrParseInterface(DocletEnvironment docEnv, TypeElement classElement, InterfaceParsedEvent event) {
+        if (endpointCache == null) {
+            return parseInterfaceMethods(docEnv, classElement);
+        }
+        String interfaceName = classElement.getQualifiedName().toString();
+        String key = sourceKey(docEnv, classElement);
+        if (key == null) {
+            return parseInterfaceMethods(docEnv, classElement);
+        }
+        List<ParsedEndpoint> parsedEndpoints = endpointCache.get(interfaceName, key);
+        if (parsedEndpoints == null) {
+            parsedEndpoints = parseInterfaceMethods(docEnv, classElement);
+            endpointCache.put(interfaceName, key, parsedEndpoints);
+        } else {
+            event.cached = true;
+            metrics.increment(DocletMetrics.Counter.CACHED_INTERFACES, 1);
+        }
+        return parsedEndpoints;
+    }
+
+    /**
+     * Returns the cache key of the interface: its source file and the resolved annotations of its endpoint methods,
+     * which also cover the annotation types, the constants and the HTTP method annotations declared in other files.
+     */
+    private String sourceKey(DocletEnvironment docEnv, TypeElement classElement) {
+        // the javac model behind the doclet environment is not thread-safe, listing the members completes the class
+        synchronized (docEnv) {
+            TreePath path = docEnv.getDocTrees().getPath(classElement);
+            if (path == null) {
+                return null;
+            }
+            StringBuilder annotations = new StringBuilder();
+            for (ExecutableElement method : ElementFilter.methodsIn(classElement.getEnclosedElements())) {
+                if (hasExternalTag(docEnv, method)) {
+                    Parser.MethodAnnotations resolved = Parser.resolveMethodAnnotations(
+                            docEnv.getElementUtils().getAllAnnotationMirrors(method), getAnnotationResolver());
+                    annotations.append(method.getSimpleName()).append(' ').append(resolved.getHttpMethod()).append(' ')
+                            .append(resolved.getCustomProperties()).append('\n');
+                }
+            }
+            try {
+                return endpointCache.key(path.getCompilationUnit().getSourceFile().getCharContent(true), annotations.toString());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * All the options which affect the parsed endpoints; a cached entry is only reused when they are unchanged.
+     */
+    private String optionsFingerprint() {
+        return String.join("\n",
+                String.valueOf(applicationPathOption.getApplicationPath()),
+                String.valueOf(backendHostOption.getBackendHost()),
+                String.valueOf(backendPortOption.getBackendPort()),
+                String.valueOf(defaultActionClassOption.getDefaultActionClass()),
+                String.valueOf(defaultFilterClassOption.getDefaultFilterClass()),
+                String.valueOf(new TreeMap<>(customAnnotationOption.getCustomAnnotations())));
+    }
+
+    private List<ParsedEndpoint> parseInterfaceMethods(DocletEnvironment docEnv, TypeElement classElement) {
+        List<ParsedEndpoint> parsedEndpoints = new ArrayList<>();
+        List<Element> enclosedElements;
+        // the javac model behind the doclet environment is not thread-safe, listing the members completes the class
+        synchronized (docEnv) {
+            enclosedElements = new ArrayList<>(classElement.getEnclosedElements());
+        }
+        for (Element enclosedElement : enclosedElements) {
+            if (!(enclosedElement instanceof ExecutableElement methodElement)) {
+                continue;
+            }
+            boolean endpointCandidate;
+            synchronized (docEnv) {
+                endpointCandidate = hasExternalTag(docEnv, methodElement);
+            }
+            if (!endpointCandidate) {
+                metrics.increment(DocletMetrics.Counter.SKIPPED_METHODS, 1);
+                continue;
+            }
+            Map<String, String> tags;
+            Parser.MethodAnnotations annotations;
+            TagExtractionEvent extractionEvent = new TagExtractionEvent();
+            extractionEvent.begin();
+            synchronized (docEnv) {
+                DocletMetrics.Timer extractTimer = metrics.start(DocletMetrics.Phase.EXTRACT_TAGS);
+                tags = extractTags(docEnv, methodElement);
+                // the annotation values are copied while the model is locked, the parsing runs outside of the lock
+                annotations = Parser.resolveMethodAnnotations(docEnv.getElementUtils().getAllAnnotationMirrors(enclosedElement),
+                        getAnnotationResolver());
+                extractTimer.stop();
+            }
+            if (extractionEvent.shouldCommit()) {
+                extractionEvent.methodName = methodElement.getSimpleName().toString();
+                extractionEvent.tagCount = tags.size();
+                extractionEvent.commit();
+            }
+            metrics.increment(DocletMetrics.Counter.TAGS, tags.size());
+            ParsedEndpoint parsed;
+            EndpointParsedEvent parsedEvent = new EndpointParsedEvent();
+            parsedEvent.begin();
+            DocletMetrics.Timer parseTimer = metrics.start(DocletMetrics.Phase.PARSE_ENDPOINT);
+            try {
+                parsed = parseEndpoint(tags, annotations);
+            } catch (ParseException e) {
+                throw new RuntimeException(e);
+            } finally {
+                parseTimer.stop();
+            }
+            if (parsedEvent.shouldCommit()) {
+                parsedEvent.methodName = methodElement.getSimpleName().toString();
+                parsedEvent.externalEndpoint = parsed == null ? null : parsed.getMappingEndpoint().getExternalEndpoint();
+                parsedEvent.tagCount = tags.size();
+                parsedEvent.commit();
+            }
+            if (parsed != null) {
+                parsedEndpoints.add(parsed);
+            }
+        }
+        return parsedEndpoints;
+    }
+
+    /**
+     * Cheap check on the raw doc comment, so that the doc comment tree and the annotations of methods
+     * which are not endpoints, like helper and default methods, are never built.
+     */
+    private static boolean hasExternalTag(DocletEnvironment docEnv, ExecutableElement method) {
+        String docComment = docEnv.getElementUtils().getDocComment(method);
+        return docComment != null && docComment.contains(APIFEST_EXTERNAL_TAG);
+    }
+
     static class TagScanner extends SimpleDocTreeVisitor<Void, Void> {
         private final Map<String, String> tags;
 
@@ -236,15 +845,18 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
         return tagMap;
     }
 
-    private boolean validateConfiguration() {
-        String mappingVersion = mappingVersionOption.getMappingVersion();
-        if (mappingVersion == null || mappingVersion.isEmpty() || NULL.equalsIgnoreCase(mappingVersion)) {
+    boolean validateConfiguration() {
+        List<String> mappingVersions = mappingVersionOption.getMappingVersions();
+        if (mappingVersions.isEmpty() || NULL.equalsIgnoreCase(mappingVersions.get(0))) {
             throw new IllegalArgumentException("mapping.version is not set.");
         }
-        if (modeOption.getDocletModes().contains(DocletMode.MAPPING)) {
-            String backendHost = backendHostOption.getBackendHost();
-            if (backendHost == null || backendHost.isEmpty() || NULL.equalsIgnoreCase(backendHost)) {
-                throw new IllegalArgumentException("backend.host is not set.");
+        if (modeOption.getDocletModes().contains(DocletMode.MAPPING) || modeOption.getDocletModes().contains(DocletMode.BINARY)) {
+            for (BackendProfile profile : getBackendProfiles()) {
+                String backendHost = profile.getBackendHost();
+                if (backendHost == null || backendHost.isEmpty() || NULL.equalsIgnoreCase(backendHost)) {
+                    throw new IllegalArgumentException(profile.getName() == null ? "backend.host is not set."
+                            : "backend.host is not set for the backend profile " + profile.getName() + ".");
+                }
             }
         }
         String mappingOutputFile = mappingFilenameOption.getMappingFilename();
@@ -258,7 +870,29 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
         return true;
     }
 
-    private ParsedEndpoint parseEndpoint(Map<String, String> tagMap, List<? extends AnnotationMirror> annotations) throws ParseException {
+    PackageFilter getPackageFilter() {
+        return new PackageFilter(includePackagesOption.getPackages(), excludePackagesOption.getPackages());
+    }
+
+    /**
+     * Writes the output files through the opener instead of next to their names, used by the {@link MappingProcessor}.
+     */
+    void setOutputOpener(OutputFiles.Opener opener) {
+        outputFiles = new OutputFiles(opener);
+    }
+
+    private synchronized AnnotationResolver getAnnotationResolver() {
+        if (annotationResolver == null) {
+            annotationResolver = new AnnotationResolver(customAnnotationOption.getCustomAnnotations());
+        }
+        return annotationResolver;
+    }
+
+    ParsedEndpoint parseEndpoint(Map<String, String> tagMap, List<? extends AnnotationMirror> annotations) throws ParseException {
+        return parseEndpoint(tagMap, Parser.resolveMethodAnnotations(annotations, getAnnotationResolver()));
+    }
+
+    private ParsedEndpoint parseEndpoint(Map<String, String> tagMap, Parser.MethodAnnotations annotations) throws ParseException {
         ParsedEndpoint parsed = null;
         MappingEndpoint mappingEndpoint = null;
         MappingEndpointDocumentation mappingEndpointDocumentation = null;
@@ -270,8 +904,12 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
             mappingEndpoint = new MappingEndpoint();
             mappingEndpointDocumentation = new MappingEndpointDocumentation();
 
-            mappingEndpoint.setExternalEndpoint("/" + mappingVersionOption.getMappingVersion() + externalEndpoint);
-            mappingEndpointDocumentation.setEndpoint("/" + mappingVersionOption.getMappingVersion() + externalEndpoint);
+            // the mapping version is prepended for each version in applyVersion
+            parsed.setExternalEndpoint(externalEndpoint);
+            parsed.setProfileTags(Parser.parseProfileTags(tagMap));
+            parsed.setVarExpressions(Parser.parseVarExpressions(tagMap));
+            mappingEndpoint.setExternalEndpoint(externalEndpoint);
+            mappingEndpointDocumentation.setEndpoint(externalEndpoint);
 
             Parser.parseInternalEndpointTag(tagMap, mappingEndpoint, mappingEndpointDocumentation, applicationPathOption.getApplicationPath());
             Parser.parseDocsDescriptiveTags(tagMap, mappingEndpointDocumentation);
@@ -283,11 +921,11 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
             Parser.parseHidden(tagMap, mappingEndpoint, mappingEndpointDocumentation);
             Parser.parseMethodAnnotations(annotations,
                     mappingEndpoint,
-                    mappingEndpointDocumentation,
-                    customAnnotationOption.getCustomAnnotations());
-            Parser.parseRequestParams(tagMap, mappingEndpointDocumentation);
-            Parser.parseResultParams(tagMap, mappingEndpointDocumentation);
-            Parser.parseExceptions(tagMap, mappingEndpointDocumentation);
+                    mappingEndpointDocumentation);
+            TagDispatcher tags = TagDispatcher.dispatch(tagMap);
+            Parser.parseRequestParams(tagMap, tags, mappingEndpointDocumentation);
+            Parser.parseResultParams(tagMap, tags, mappingEndpointDocumentation);
+            Parser.parseExceptions(tags, mappingEndpointDocumentation);
         }
 
         if (parsed != null) {
@@ -297,38 +935,173 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
         return parsed;
     }
 
-    private void generateDocsFile(List<ParsedEndpoint> parsedEndpoints, String outputFile) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        AnnotationIntrospector introspector = new JakartaXmlBindAnnotationIntrospector(TypeFactory.defaultInstance());
-        mapper.setAnnotationIntrospector(introspector);
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
-        MappingDocumentation mappingDocs = new MappingDocumentation();
-        List<MappingEndpointDocumentation> endpoints = new ArrayList<MappingEndpointDocumentation>();
-        for (ParsedEndpoint parsed : parsedEndpoints) {
-            MappingEndpointDocumentation endpoint = parsed.getMappingEndpointDocumentation();
-            if (endpoint != null && !endpoint.isHidden()) {
-                endpoints.add(endpoint);
-            }
+    private void generateDocsFile(ParsedEndpoints parsedEndpoints, String outputFile, String mappingVersion) throws IOException {
+        OutputWriteEvent event = new OutputWriteEvent();
+        event.begin();
+        DocletMetrics.Timer writeTimer = metrics.start(DocletMetrics.Phase.WRITE_DOCS);
+        List<Path> written;
+        try {
+            written = outputFiles.write(Paths.get(outputFile), compressionOption.getCompression(), out -> {
+                try (MappingDocsWriter writer = new MappingDocsWriter(out, mappingVersion)) {
+                    for (ParsedEndpoint parsed : parsedEndpoints) {
+                        writer.write(parsed);
+                    }
+                }
+            });
+        } finally {
+            writeTimer.stop();
         }
-        mappingDocs.setVersion(mappingVersionOption.getMappingVersion());
-        mappingDocs.setMappingEndpointDocumentation(endpoints);
-        mapper.writeValue(new File(outputFile), mappingDocs);
+        recordOutputs(written);
+        commitOutputWriteEvent(event, written.get(0).toString(), DocletMode.DOC, parsedEndpoints.size());
     }
 
-    private void generateMappingFile(List<ParsedEndpoint> parsedEndpoints, String outputFile) throws JAXBException {
-        String mappingVersion = mappingVersionOption.getMappingVersion();
-        String backendHost = backendHostOption.getBackendHost();
-        int backendPort = backendPortOption.getBackendPort();
+    private void generateMappingFile(ParsedEndpoints parsedEndpoints, String outputFile, String mappingVersion,
+            BackendProfile profile) throws IOException, JAXBException {
         if (outputFile == null || outputFile.isEmpty() || NULL.equalsIgnoreCase(outputFile)) {
             outputFile = String.format(DEFAULT_MAPPING_NAME, mappingVersion);
         }
-        // set context class loader to avoid ClassNotFoundException for JAXBContext
-        ClassLoader currentLoader = Thread.currentThread().getContextClassLoader();
-        Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
-        JAXBContext jaxbContext = JAXBContext.newInstance(Mapping.class);
-        Thread.currentThread().setContextClassLoader(currentLoader);
+        OutputWriteEvent event = new OutputWriteEvent();
+        event.begin();
+        DocletMetrics.Timer writeTimer = metrics.start(DocletMetrics.Phase.WRITE_MAPPING);
+        try {
+            if (shardByOption.getShardBy() != null) {
+                outputFile = writeShardedMappingFiles(parsedEndpoints, outputFile, mappingVersion, profile);
+            } else {
+                List<Path> written = mappingWriterOption.isJaxb()
+                        ? marshalMappingFile(parsedEndpoints, outputFile, mappingVersion, profile)
+                        : writeMappingFile(parsedEndpoints, outputFile, mappingVersion, profile);
+                recordOutputs(written);
+                outputFile = written.get(0).toString();
+            }
+        } finally {
+            writeTimer.stop();
+        }
+        commitOutputWriteEvent(event, outputFile, DocletMode.MAPPING, parsedEndpoints.size());
+    }
+
+    private void recordOutputs(List<Path> written) {
+        for (Path file : written) {
+            metrics.recordOutput(file.toString());
+        }
+    }
+
+    private void commitOutputWriteEvent(OutputWriteEvent event, String outputFile, DocletMode mode, int endpointCount) {
+        if (event.shouldCommit()) {
+            event.file = outputFile;
+            event.mode = mode.getValue();
+            event.endpointCount = endpointCount;
+            // the output file may still be deferred, so the size is the one written in this run
+            event.bytes = outputFiles.getSize(Paths.get(outputFile));
+            event.commit();
+        }
+    }
 
-        Marshaller marshaller = jaxbContext.createMarshaller();
+    private Map<String, MappingEndpoint> readPreviousMapping(String mappingVersion, BackendProfile profile) throws IOException {
+        String previousMapping = profileFilename(versionedFilename(previousMappingOption.getPreviousMapping(), mappingVersion), profile);
+        if (previousMapping == null || previousMapping.isEmpty() || NULL.equalsIgnoreCase(previousMapping)) {
+            return null;
+        }
+        if (!new File(previousMapping).isFile()) {
+            System.out.println("WARNING: previous mapping " + previousMapping + " does not exist, no delta is written");
+            return null;
+        }
+        return MappingDelta.readMapping(Paths.get(previousMapping));
+    }
+
+    /**
+     * Writes the delta from the previous mapping next to the mapping file, e.g. output_mapping_v1_delta.xml.
+     */
+    private void generateDeltaFile(ParsedEndpoints parsedEndpoints, Map<String, MappingEndpoint> previousEndpoints,
+            String mappingFile, String mappingVersion) throws IOException {
+        if (mappingFile == null || mappingFile.isEmpty() || NULL.equalsIgnoreCase(mappingFile)) {
+            mappingFile = String.format(DEFAULT_MAPPING_NAME, mappingVersion);
+        }
+        String outputFile = mappingFile.replaceFirst("(\\.xml)?$", MappingDelta.DELTA_SUFFIX);
+        MappingDelta delta = new MappingDelta(previousEndpoints, parsedEndpoints);
+        outputFiles.write(outputFile, out -> delta.write(out, mappingVersion));
+        metrics.recordOutput(outputFile);
+        System.out.println("Mapping delta: " + delta.getAdded().size() + " added, " + delta.getRemoved().size() + " removed, "
+                + delta.getChanged().size() + " changed endpoints");
+    }
+
+    private void generateRouteIndexFile(ParsedEndpoints parsedEndpoints, String outputFile, String mappingVersion) throws IOException {
+        DocletMetrics.Timer writeTimer = metrics.start(DocletMetrics.Phase.WRITE_ROUTE_INDEX);
+        try {
+            RouteTrie trie = RouteTrie.build(mappingVersion, parsedEndpoints);
+            outputFiles.write(outputFile, trie::write);
+        } finally {
+            writeTimer.stop();
+        }
+        metrics.recordOutput(outputFile);
+    }
+
+    /**
+     * Writes the mapping in binary form next to the mapping file, with the .bin extension.
+     */
+    private void generateBinaryMappingFile(ParsedEndpoints parsedEndpoints, String mappingFile, String mappingVersion,
+            BackendProfile profile) throws IOException {
+        String outputFile;
+        if (mappingFile == null || mappingFile.isEmpty() || NULL.equalsIgnoreCase(mappingFile)) {
+            outputFile = String.format(DEFAULT_BINARY_MAPPING_NAME, mappingVersion);
+        } else {
+            outputFile = mappingFile.replaceFirst("(\\.xml)?$", ".bin");
+        }
+        OutputWriteEvent event = new OutputWriteEvent();
+        event.begin();
+        DocletMetrics.Timer writeTimer = metrics.start(DocletMetrics.Phase.WRITE_BINARY);
+        try {
+            outputFiles.write(outputFile, out -> {
+                if (parsedEndpoints instanceof EndpointStore) {
+                    // the store can be iterated twice, so the endpoints are not held in memory
+                    BinaryMappingWriter.write(out, mappingVersion, profile.getBackendHost(), profile.getBackendPort(), parsedEndpoints);
+                    return;
+                }
+                try (BinaryMappingWriter writer = new BinaryMappingWriter(out, mappingVersion, profile.getBackendHost(),
+                        profile.getBackendPort())) {
+                    for (ParsedEndpoint parsed : parsedEndpoints) {
+                        writer.write(parsed);
+                    }
+                }
+            });
+        } finally {
+            writeTimer.stop();
+        }
+        metrics.recordOutput(outputFile);
+        commitOutputWriteEvent(event, outputFile, DocletMode.BINARY, parsedEndpoints.size());
+    }
+
+    /**
+     * Writes one mapping file per shard and the index of the shards.
+     *
+     * @return the index file
+     */
+    private String writeShardedMappingFiles(ParsedEndpoints parsedEndpoints, String outputFile, String mappingVersion,
+            BackendProfile profile) throws IOException {
+        ShardedMappingWriter writer = new ShardedMappingWriter(Paths.get(outputFile), mappingVersion,
+                profile.getBackendHost(), profile.getBackendPort(), shardByOption.getShardBy(), outputFiles);
+        for (Path written : writer.write(parsedEndpoints, parallelismOption.getParallelism())) {
+            metrics.recordOutput(written.toString());
+        }
+        return writer.getIndexFile().toString();
+    }
+
+    private List<Path> writeMappingFile(ParsedEndpoints parsedEndpoints, String outputFile, String mappingVersion,
+            BackendProfile profile) throws IOException {
+        return outputFiles.write(Paths.get(outputFile), compressionOption.getCompression(), out -> {
+            try (MappingWriter writer = new MappingWriter(out, mappingVersion, profile.getBackendHost(), profile.getBackendPort())) {
+                for (ParsedEndpoint parsed : parsedEndpoints) {
+                    writer.write(parsed);
+                }
+            }
+        });
+    }
+
+    /**
+     * Marshals the whole mapping tree at once; kept for compatibility with the output of previous versions.
+     */
+    private List<Path> marshalMappingFile(ParsedEndpoints parsedEndpoints, String outputFile, String mappingVersion,
+            BackendProfile profile) throws IOException, JAXBException {
+        Marshaller marshaller = MappingWriter.getContext().createMarshaller();
         try {
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
         } catch (PropertyException e) {
@@ -336,7 +1109,7 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
         }
         Mapping mapping = new Mapping();
         mapping.setVersion(mappingVersion);
-        mapping.setBackend(new Backend(backendHost, backendPort));
+        mapping.setBackend(new Backend(profile.getBackendHost(), profile.getBackendPort()));
         EndpointsWrapper ends = new EndpointsWrapper();
         List<MappingEndpoint> endpoints = new ArrayList<MappingEndpoint>();
         for (ParsedEndpoint parsed : parsedEndpoints) {
@@ -347,6 +1120,12 @@ public class Doclet implements jdk.javadoc.doclet.Doclet {
         }
         ends.setEndpoints(endpoints);
         mapping.setEndpointsWrapper(ends);
-        marshaller.marshal(mapping, new File(outputFile));
+        return outputFiles.write(Paths.get(outputFile), compressionOption.getCompression(), out -> {
+            try {
+                marshaller.marshal(mapping, out);
+            } catch (JAXBException e) {
+                throw new IOException(e);
+            }
+        });
     }
 }
@@ -0,0 +1,203 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Wall time and CPU time of the doclet phases, endpoint counts and output sizes of a run,
+ * written as JSON with {@link #write(Path)}. The time of the phases executed per interface or
+ * per endpoint is summed over all the parsing threads. When disabled, nothing is measured.
+ */
+public class DocletMetrics {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    // the javadoc startup is only measured by the first run in a JVM, e.g. not by the reruns of the watcher
+    private static final AtomicBoolean FIRST_RUN = new AtomicBoolean(true);
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private static final Timer NO_TIMER = () -> { };
+
+    public enum Phase {
+        // JVM start-up, source parsing and attribution by the javadoc tool, before the doclet is started
+        JAVADOC("javadoc"),
+        PARSE_INTERFACES("parseInterfaces"),
+        EXTRACT_TAGS("extractTags"),
+        PARSE_ENDPOINT("parseEndpoint"),
+        ORDER_ENDPOINTS("orderEndpoints"),
+        WRITE_DOCS("writeDocs"),
+        WRITE_MAPPING("writeMapping"),
+        WRITE_BINARY("writeBinary"),
+        WRITE_ROUTE_INDEX("writeRouteIndex");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public enum Counter {
+        INTERFACES("interfaces"),
+        CACHED_INTERFACES("cachedInterfaces"),
+        ENDPOINTS("endpoints"),
+        // methods without an apifest.external tag, skipped before their doc comment is parsed
+        SKIPPED_METHODS("skippedMethods"),
+        TAGS("tags"),
+        // output files left untouched because their content did not change
+        UNCHANGED_OUTPUTS("unchangedOutputs");
+
+        private final String name;
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Stops the measurement of a phase started with {@link DocletMetrics#start(Phase)}.
+     */
+    public interface Timer {
+        void stop();
+    }
+
+    private final boolean enabled;
+    private final boolean cpuTimeSupported;
+    private final Map<Phase, LongAdder> wallNanos = new EnumMap<>(Phase.class);
+    private final Map<Phase, LongAdder> cpuNanos = new EnumMap<>(Phase.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+    // sorted, so that the output sizes are written in the same order on every run
+    private final Set<String> outputFiles = new ConcurrentSkipListSet<>();
+
+    public DocletMetrics(boolean enabled) {
+        this.enabled = enabled;
+        this.cpuTimeSupported = enabled && THREADS.isCurrentThreadCpuTimeSupported();
+        for (Phase phase : Phase.values()) {
+            wallNanos.put(phase, new LongAdder());
+            cpuNanos.put(phase, new LongAdder());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the time spent by the javadoc tool before the doclet was started. It is only recorded by the
+     * first run in a JVM, the uptime of later runs includes the previous runs.
+     */
+    public void recordJavadocStartup() {
+        if (!FIRST_RUN.getAndSet(false) || !enabled) {
+            return;
+        }
+        wallNanos.get(Phase.JAVADOC).add(ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000L);
+        if (cpuTimeSupported) {
+            cpuNanos.get(Phase.JAVADOC).add(THREADS.getCurrentThreadCpuTime());
+        }
+    }
+
+    /**
+     * Starts measuring a phase on the current thread.
+     */
+    public Timer start(Phase phase) {
+        if (!enabled) {
+            return NO_TIMER;
+        }
+        long wallStart = System.nanoTime();
+        long cpuStart = cpuTimeSupported ? THREADS.getCurrentThreadCpuTime() : 0;
+        return () -> {
+            wallNanos.get(phase).add(System.nanoTime() - wallStart);
+            if (cpuTimeSupported) {
+                cpuNanos.get(phase).add(THREADS.getCurrentThreadCpuTime() - cpuStart);
+            }
+        };
+    }
+
+    public void increment(Counter counter, long value) {
+        if (enabled) {
+            counters.get(counter).add(value);
+        }
+    }
+
+    /**
+     * Records an output file; its size is read when the metrics are written, once the output files are replaced.
+     */
+    public void recordOutput(String outputFile) {
+        if (enabled) {
+            outputFiles.add(outputFile);
+        }
+    }
+
+    long getWallNanos(Phase phase) {
+        return wallNanos.get(phase).sum();
+    }
+
+    long getCount(Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    public void write(Path metricsFile) throws IOException {
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            Map<String, Object> times = new LinkedHashMap<>();
+            times.put("wallMillis", wallNanos.get(phase).sum() / NANOS_PER_MILLI);
+            times.put("cpuMillis", cpuTimeSupported ? cpuNanos.get(phase).sum() / NANOS_PER_MILLI : null);
+            phases.put(phase.getName(), times);
+        }
+        Map<String, Object> counts = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            counts.put(counter.getName(), counters.get(counter).sum());
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("phases", phases);
+        metrics.put("counts", counts);
+        Map<String, Long> outputBytes = new LinkedHashMap<>();
+        for (String outputFile : outputFiles) {
+            try {
+                outputBytes.put(outputFile, Files.size(Path.of(outputFile)));
+            } catch (IOException e) {
+                // the output file was not written
+            }
+        }
+        metrics.put("outputBytes", outputBytes);
+        MAPPER.writeValue(metricsFile.toFile(), metrics);
+    }
+}
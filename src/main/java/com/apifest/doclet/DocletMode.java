@@ -22,7 +22,7 @@ package com.apifest.doclet;
  *
  */
 public enum DocletMode {
-    MAPPING("mapping"), DOC("doc");
+    MAPPING("mapping"), DOC("doc"), BINARY("binary");
     private String mode;
 
     private DocletMode(String mode) {
@@ -0,0 +1,224 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.tools.DocumentationTool;
+
+import com.apifest.doclet.option.WatchOption;
+
+/**
+ * Reruns the javadoc tool with the doclet whenever a Java source file under the watched source paths
+ * changes. The JVM stays warm between runs, the JAXB and Jackson infrastructure is reused and,
+ * through the endpoint cache, only the changed interfaces are parsed again. A temporary cache
+ * directory, used when none is configured, is deleted when watching stops.
+ */
+public class DocletWatcher {
+    // changes saved within this period are handled by a single run
+    private static final long DEBOUNCE_MILLIS = 100;
+    private static final String JAVA_EXTENSION = ".java";
+    private static final List<String> SOURCE_PATH_OPTIONS = List.of("-sourcepath", "--source-path");
+    private static final List<String> CACHE_DIR_OPTIONS = List.of("-cacheDir", "--cache-dir");
+
+    private final DocumentationTool javadocTool;
+    private final String[] javadocArgs;
+    private final Path temporaryCacheDir;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+
+    public DocletWatcher(DocumentationTool javadocTool, String[] javadocArgs) throws IOException {
+        this.javadocTool = javadocTool;
+        if (hasCacheDir(javadocArgs)) {
+            this.temporaryCacheDir = null;
+            this.javadocArgs = javadocArgs;
+        } else {
+            // reruns only parse the changed interfaces
+            this.temporaryCacheDir = Files.createTempDirectory("apifest-doclet-cache");
+            this.javadocArgs = withCacheDir(javadocArgs, temporaryCacheDir);
+        }
+    }
+
+    public static boolean isWatch(String[] javadocArgs) {
+        for (String arg : javadocArgs) {
+            if (WatchOption.NAMES.contains(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generates the output files and then watches the source paths until the thread is interrupted.
+     */
+    public void watch() throws IOException, InterruptedException {
+        // the watcher is usually stopped with Ctrl+C, which only runs the shutdown hooks
+        Thread cleanup = new Thread(this::deleteTemporaryCacheDir);
+        Runtime.getRuntime().addShutdownHook(cleanup);
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            for (Path path : watchedPaths(javadocArgs)) {
+                register(watchService, path);
+            }
+            runJavadoc();
+            System.out.println("Watching " + watchedDirs.size() + " directories for changes");
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean sourceChanged = handleEvents(watchService, key);
+                // collect the rest of the changes of the same save
+                while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    sourceChanged |= handleEvents(watchService, key);
+                }
+                if (sourceChanged) {
+                    runJavadoc();
+                }
+            }
+        } finally {
+            Runtime.getRuntime().removeShutdownHook(cleanup);
+            deleteTemporaryCacheDir();
+        }
+    }
+
+    private void deleteTemporaryCacheDir() {
+        if (temporaryCacheDir == null || !Files.exists(temporaryCacheDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(temporaryCacheDir)) {
+            // the entries before their directory
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot delete the temporary cache directory " + temporaryCacheDir + ", " + e.getMessage());
+        }
+    }
+
+    private void runJavadoc() {
+        long start = System.nanoTime();
+        int result = javadocTool.run(null, null, null, javadocArgs);
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (result != 0) {
+            System.err.println("Javadoc tool failed with exit code " + result);
+        } else {
+            System.out.println("Output generated in " + duration + " ms");
+        }
+    }
+
+    private boolean handleEvents(WatchService watchService, WatchKey key) throws IOException {
+        Path dir = watchedDirs.get(key);
+        boolean sourceChanged = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                sourceChanged = true;
+                continue;
+            }
+            Path changed = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                register(watchService, changed);
+                sourceChanged = true;
+            } else if (changed.getFileName().toString().endsWith(JAVA_EXTENSION)) {
+                sourceChanged = true;
+            }
+        }
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+        return sourceChanged;
+    }
+
+    private void register(WatchService watchService, Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirs.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * The source path entries and the directories of the source files passed to the javadoc tool.
+     */
+    static Set<Path> watchedPaths(String[] javadocArgs) {
+        Set<Path> paths = new LinkedHashSet<>();
+        for (int i = 0; i < javadocArgs.length; i++) {
+            String arg = javadocArgs[i];
+            if (SOURCE_PATH_OPTIONS.contains(arg) && i + 1 < javadocArgs.length) {
+                for (String entry : javadocArgs[++i].split(File.pathSeparator)) {
+                    paths.add(Paths.get(entry).toAbsolutePath().normalize());
+                }
+            } else if (arg.endsWith(JAVA_EXTENSION)) {
+                Path parent = Paths.get(arg).toAbsolutePath().normalize().getParent();
+                if (parent != null) {
+                    paths.add(parent);
+                }
+            }
+        }
+        if (paths.isEmpty()) {
+            paths.add(Paths.get("").toAbsolutePath());
+        }
+        return paths;
+    }
+
+    static boolean hasCacheDir(String[] javadocArgs) {
+        for (String arg : javadocArgs) {
+            if (CACHE_DIR_OPTIONS.contains(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the cache directory to the arguments, unless one is configured.
+     */
+    static String[] withCacheDir(String[] javadocArgs, Path cacheDir) {
+        if (hasCacheDir(javadocArgs)) {
+            return javadocArgs;
+        }
+        List<String> args = new ArrayList<>();
+        args.add(CACHE_DIR_OPTIONS.get(0));
+        args.add(cacheDir.toString());
+        args.addAll(Arrays.asList(javadocArgs));
+        return args.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Persistent cache of the endpoints parsed from each interface. An entry is valid as long as
+ * the content of the interface source file, the resolved annotations of its endpoint methods and the
+ * doclet options used to parse it are unchanged.
+ * Entries of interfaces that were not looked up during a run are removed by {@link #prune()}.
+ */
+public class EndpointCache {
+    // bump when the cached representation or the parsing logic changes
+    private static final String CACHE_FORMAT_VERSION = "6";
+    private static final String ENTRY_EXTENSION = ".json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path cacheDir;
+    private final String optionsFingerprint;
+    private final Set<String> usedEntries = ConcurrentHashMap.newKeySet();
+
+    public EndpointCache(Path cacheDir, String optionsFingerprint) throws IOException {
+        this.cacheDir = cacheDir;
+        this.optionsFingerprint = optionsFingerprint;
+        Files.createDirectories(cacheDir);
+    }
+
+    /**
+     * Computes the key of an interface from the content of its source file and the resolved annotations of its
+     * endpoint methods. The annotations depend on other files, like the annotation types and the constants used
+     * in the annotation values, which the source of the interface does not show.
+     */
+    public String key(CharSequence sourceContent, String annotations) {
+        return sha256(CACHE_FORMAT_VERSION + "\n" + optionsFingerprint + "\n" + annotations + "\n" + sourceContent);
+    }
+
+    /**
+     * Returns the cached endpoints of the interface or null if there is no valid entry for the key.
+     */
+    public List<ParsedEndpoint> get(String interfaceName, String key) {
+        Path entryFile = entryFile(interfaceName);
+        usedEntries.add(entryFile.getFileName().toString());
+        if (!Files.isRegularFile(entryFile)) {
+            return null;
+        }
+        try {
+            CacheEntry entry = MAPPER.readValue(entryFile.toFile(), CacheEntry.class);
+            if (!key.equals(entry.key) || entry.endpoints == null) {
+                return null;
+            }
+            return entry.endpoints;
+        } catch (IOException e) {
+            System.out.println("WARNING: cannot read cache entry " + entryFile + ", " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String interfaceName, String key, List<ParsedEndpoint> endpoints) {
+        Path entryFile = entryFile(interfaceName);
+        usedEntries.add(entryFile.getFileName().toString());
+        CacheEntry entry = new CacheEntry();
+        entry.key = key;
+        entry.endpoints = new ArrayList<>(endpoints);
+        try {
+            Path tempFile = Files.createTempFile(cacheDir, entryFile.getFileName().toString(), ".tmp");
+            MAPPER.writeValue(tempFile.toFile(), entry);
+            Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("WARNING: cannot write cache entry " + entryFile + ", " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the entries of interfaces that were not looked up since the cache was created,
+     * i.e. interfaces that were deleted or renamed.
+     */
+    public void prune() {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(ENTRY_EXTENSION))
+                    .filter(file -> !usedEntries.contains(file.getFileName().toString()))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            System.out.println("WARNING: cannot delete cache entry " + file + ", " + e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            System.out.println("WARNING: cannot prune cache directory " + cacheDir + ", " + e.getMessage());
+        }
+    }
+
+    private Path entryFile(String interfaceName) {
+        return cacheDir.resolve(interfaceName.replaceAll("[^\\w.$-]", "_") + ENTRY_EXTENSION);
+    }
+
+    static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class CacheEntry {
+        String key;
+        List<ParsedEndpoint> endpoints;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of the parsing of the tags and annotations of one endpoint method.
+ */
+@Name("com.apifest.doclet.EndpointParsed")
+@Label("Endpoint Parsed")
+@Category({"ApiFest", "Doclet"})
+@Description("Parsing of the tags and annotations of an endpoint method")
+class EndpointParsedEvent extends jdk.jfr.Event {
+    @Label("Method")
+    String methodName;
+
+    @Label("External Endpoint")
+    String externalEndpoint;
+
+    @Label("Tags")
+    int tagCount;
+}
@@ -0,0 +1,158 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Hands the parsed endpoints over to the writers while the interfaces are still being parsed. Every writer
+ * subscribes before the first endpoint is published and takes the endpoints from its own bounded queue, so a
+ * slow writer holds the parsing back instead of letting the parsed endpoints pile up in memory. The writers
+ * share the endpoints and only read them.
+ */
+class EndpointPipeline {
+    private static final ParsedEndpoint END = new ParsedEndpoint();
+    private static final ParsedEndpoint ABORTED = new ParsedEndpoint();
+
+    private final int capacity;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+
+    EndpointPipeline(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the endpoints of a writer; they can be iterated once, the iteration blocks until the next endpoint
+     * is published and fails with a {@link CancellationException} when the pipeline is aborted.
+     */
+    Subscription subscribe() {
+        Subscription subscription = new Subscription(new ArrayBlockingQueue<>(capacity));
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Publishes the endpoint to every writer, waiting while the queue of a writer is full.
+     */
+    void publish(ParsedEndpoint parsed) throws IOException {
+        for (Subscription subscription : subscriptions) {
+            subscription.put(parsed);
+        }
+    }
+
+    /**
+     * Ends the iteration of every writer after the endpoints published so far.
+     */
+    void finish() throws IOException {
+        publish(END);
+    }
+
+    /**
+     * Fails the iteration of every writer, without waiting for the queues.
+     */
+    void abort() {
+        for (Subscription subscription : subscriptions) {
+            subscription.queue.clear();
+            subscription.queue.offer(ABORTED);
+        }
+    }
+
+    static class Subscription implements ParsedEndpoints {
+        private final BlockingQueue<ParsedEndpoint> queue;
+        // set by the writer when it stops taking endpoints, the endpoints published afterwards are dropped
+        private volatile boolean closed;
+        private int size;
+        private boolean iterated;
+
+        Subscription(BlockingQueue<ParsedEndpoint> queue) {
+            this.queue = queue;
+        }
+
+        private void put(ParsedEndpoint parsed) throws IOException {
+            if (closed) {
+                return;
+            }
+            try {
+                queue.put(parsed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while publishing the parsed endpoints");
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Stops taking endpoints; called by the writer when it is done, also when it failed.
+         */
+        void close() {
+            closed = true;
+            // unblocks the parsing thread if it waits for the queue
+            queue.clear();
+        }
+
+        @Override
+        public Iterator<ParsedEndpoint> iterator() {
+            if (iterated) {
+                throw new IllegalStateException("the published endpoints can be iterated once");
+            }
+            iterated = true;
+            return new Iterator<ParsedEndpoint>() {
+                private ParsedEndpoint next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        try {
+                            next = queue.take();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new CancellationException("interrupted while waiting for the parsed endpoints");
+                        }
+                    }
+                    if (next == ABORTED) {
+                        throw new CancellationException("the parsing of the endpoints was aborted");
+                    }
+                    return next != END;
+                }
+
+                @Override
+                public ParsedEndpoint next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ParsedEndpoint parsed = next;
+                    next = null;
+                    size++;
+                    return parsed;
+                }
+            };
+        }
+    }
+}
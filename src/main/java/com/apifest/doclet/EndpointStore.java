@@ -0,0 +1,325 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+/**
+ * Holds the parsed endpoints of a run and returns them in the order of their apifest.docs.order tag;
+ * endpoints with the same order keep the order they were added in.
+ * <p>
+ * With a spill threshold, at most that many endpoints are kept in memory: whenever the threshold is
+ * reached they are sorted and written to a temporary run file, and iterating merges the run files
+ * and the endpoints still in memory. Each iteration reads the run files again, so that the output
+ * files are streamed from disk one after the other.
+ * <p>
+ * The mapping version and the backend profile set with {@link #apply} are applied to the endpoints in
+ * memory at once and to the endpoints read back from the run files as they are returned.
+ */
+public class EndpointStore implements ParsedEndpoints, Closeable {
+    // the run files merged at the same time, more runs are merged in several passes
+    static final int MAX_OPEN_RUNS = 64;
+    private static final String RUN_EXTENSION = ".run";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final EndpointComparator ENDPOINT_COMPARATOR = new EndpointComparator();
+    private static final Comparator<Entry> ORDER = (entry1, entry2) -> {
+        int result = ENDPOINT_COMPARATOR.compare(entry1.endpoint, entry2.endpoint);
+        return result != 0 ? result : Long.compare(entry1.sequence, entry2.sequence);
+    };
+    private static final Comparator<Entry> SEQUENCE = Comparator.comparingLong(entry -> entry.sequence);
+
+    private final int spillThreshold;
+    private final Comparator<Entry> order;
+    private final List<Entry> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private final List<Closeable> openRuns = new ArrayList<>();
+    private Path spillDir;
+    private boolean sorted = true;
+    private long sequence;
+    private int size;
+    private String version;
+    private BackendProfile profile;
+
+    /**
+     * @param spillThreshold the number of endpoints kept in memory, 0 to keep them all
+     */
+    public EndpointStore(int spillThreshold) {
+        this(spillThreshold, true);
+    }
+
+    /**
+     * @param spillThreshold the number of endpoints kept in memory, 0 to keep them all
+     * @param ordered false to return the endpoints in the order they were added, ignoring apifest.docs.order
+     */
+    public EndpointStore(int spillThreshold, boolean ordered) {
+        this.spillThreshold = spillThreshold;
+        this.order = ordered ? ORDER : SEQUENCE;
+    }
+
+    public void add(ParsedEndpoint parsed) throws IOException {
+        Entry entry = new Entry();
+        entry.sequence = sequence++;
+        entry.endpoint = parsed;
+        buffer.add(entry);
+        sorted = false;
+        size++;
+        if (spillThreshold > 0 && buffer.size() >= spillThreshold) {
+            spill();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether some endpoints were written to run files.
+     */
+    public boolean isSpilled() {
+        return !runs.isEmpty();
+    }
+
+    /**
+     * Sorts the endpoints in memory and merges the run files down to the number that is merged while iterating.
+     */
+    public void order() throws IOException {
+        orderBuffer();
+        while (runs.size() > MAX_OPEN_RUNS) {
+            List<Path> merged = new ArrayList<>(runs.subList(0, MAX_OPEN_RUNS));
+            runs.subList(0, MAX_OPEN_RUNS).clear();
+            Path run = newRun();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(run));
+                 SequenceWriter writer = MAPPER.writerFor(Entry.class).withRootValueSeparator("\n").writeValues(out)) {
+                Iterator<Entry> entries = merge(merged, false);
+                while (entries.hasNext()) {
+                    writer.write(entries.next());
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (Path mergedRun : merged) {
+                Files.delete(mergedRun);
+            }
+            runs.add(run);
+        }
+    }
+
+    /**
+     * Sets the mapping version and the backend profile of the endpoints returned by the following iterations;
+     * a null profile or the unnamed profile of the backend options leaves the backend as parsed.
+     */
+    public void apply(String version, BackendProfile profile) {
+        this.version = version;
+        this.profile = profile;
+        for (Entry entry : buffer) {
+            applyTo(entry.endpoint);
+        }
+    }
+
+    /**
+     * Returns the endpoints in order. Run files are read with an {@link UncheckedIOException} on failure.
+     */
+    @Override
+    public Iterator<ParsedEndpoint> iterator() {
+        orderBuffer();
+        Iterator<Entry> entries;
+        try {
+            entries = runs.isEmpty() ? buffer.iterator() : merge(runs, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Iterator<ParsedEndpoint>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public ParsedEndpoint next() {
+                return entries.next().endpoint;
+            }
+        };
+    }
+
+    /**
+     * Closes the run files still being read and deletes all of them.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Closeable openRun : openRuns) {
+            openRun.close();
+        }
+        openRuns.clear();
+        buffer.clear();
+        runs.clear();
+        if (spillDir != null) {
+            try (Stream<Path> files = Files.list(spillDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(spillDir);
+            spillDir = null;
+        }
+    }
+
+    private void applyTo(ParsedEndpoint parsed) {
+        if (version != null) {
+            parsed.applyVersion(version);
+        }
+        if (profile != null && profile.getName() != null) {
+            parsed.applyProfile(profile);
+        }
+    }
+
+    private void orderBuffer() {
+        if (!sorted) {
+            buffer.sort(order);
+            sorted = true;
+        }
+    }
+
+    private void spill() throws IOException {
+        orderBuffer();
+        Path run = newRun();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(run));
+             SequenceWriter writer = MAPPER.writerFor(Entry.class).withRootValueSeparator("\n").writeValues(out)) {
+            for (Entry entry : buffer) {
+                writer.write(entry);
+            }
+        }
+        runs.add(run);
+        buffer.clear();
+    }
+
+    private Path newRun() throws IOException {
+        if (spillDir == null) {
+            spillDir = Files.createTempDirectory("apifest-doclet-spill");
+        }
+        return Files.createTempFile(spillDir, "endpoints", RUN_EXTENSION);
+    }
+
+    /**
+     * Merges the sorted runs, and the sorted endpoints in memory when withBuffer is set, with a priority queue of their heads.
+     */
+    private Iterator<Entry> merge(List<Path> runFiles, boolean withBuffer) throws IOException {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>((cursor1, cursor2) -> order.compare(cursor1.head, cursor2.head));
+        for (Path run : runFiles) {
+            InputStream in = new BufferedInputStream(Files.newInputStream(run));
+            MappingIterator<Entry> entries = MAPPER.readerFor(Entry.class).readValues(in);
+            openRuns.add(entries);
+            Cursor cursor = new Cursor(entries, entries, withBuffer);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        if (withBuffer) {
+            Cursor cursor = new Cursor(buffer.iterator(), null, false);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return new Iterator<Entry>() {
+            @Override
+            public boolean hasNext() {
+                return !cursors.isEmpty();
+            }
+
+            @Override
+            public Entry next() {
+                Cursor cursor = cursors.poll();
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+                Entry entry = cursor.head;
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+                return entry;
+            }
+        };
+    }
+
+    private class Cursor {
+        private final Iterator<Entry> entries;
+        private final Closeable run;
+        private final boolean applied;
+        private Entry head;
+
+        Cursor(Iterator<Entry> entries, Closeable run, boolean applied) {
+            this.entries = entries;
+            this.run = run;
+            this.applied = applied;
+        }
+
+        boolean advance() {
+            if (entries.hasNext()) {
+                head = entries.next();
+                if (applied) {
+                    applyTo(head.endpoint);
+                }
+                return true;
+            }
+            head = null;
+            if (run != null) {
+                try {
+                    run.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                openRuns.remove(run);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * An endpoint with the sequence number it was added with, which breaks the ties of the order.
+     */
+    static class Entry {
+        long sequence;
+        ParsedEndpoint endpoint;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes parsed endpoints to an output one at a time. The output is complete once the writer is closed.
+ */
+public interface EndpointWriter extends Closeable {
+
+    void write(ParsedEndpoint parsed) throws IOException;
+}
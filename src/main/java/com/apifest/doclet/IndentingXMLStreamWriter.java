@@ -0,0 +1,316 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Indents the elements written to the delegate, so that the streamed mapping file is laid out
+ * like the formatted JAXB output. Elements with text are not indented inside, so that mixed
+ * content keeps its text unchanged. The start tag of an element is held back until its content
+ * starts, so that an element without content is written as an empty element, as JAXB does.
+ */
+class IndentingXMLStreamWriter implements XMLStreamWriter {
+    private static final String INDENT = "    ";
+    private static final String NEW_LINE = "\n";
+
+    private final XMLStreamWriter delegate;
+    // the open elements, the innermost first
+    private final Deque<OpenElement> openElements = new ArrayDeque<>();
+    // the start tag of the innermost element while it has no content yet
+    private PendingStartTag pendingStartTag;
+
+    IndentingXMLStreamWriter(XMLStreamWriter delegate) {
+        this.delegate = delegate;
+    }
+
+    private void beforeStartElement() throws XMLStreamException {
+        writePendingStartTag();
+        OpenElement parent = openElements.peek();
+        if (parent != null) {
+            if (!parent.hasText) {
+                delegate.writeCharacters(NEW_LINE);
+                indent(openElements.size());
+            }
+            parent.hasChildElements = true;
+        }
+    }
+
+    private void beforeEndElement() throws XMLStreamException {
+        OpenElement element = openElements.pop();
+        if (element.hasChildElements && !element.hasText) {
+            delegate.writeCharacters(NEW_LINE);
+            indent(openElements.size());
+        }
+    }
+
+    private void writePendingStartTag() throws XMLStreamException {
+        if (pendingStartTag != null) {
+            pendingStartTag.write(delegate, false);
+            pendingStartTag = null;
+        }
+    }
+
+    private void startElement(XMLWrite startTag, XMLWrite emptyTag) {
+        pendingStartTag = new PendingStartTag(startTag, emptyTag);
+        openElements.push(new OpenElement());
+    }
+
+    private void writeInStartTag(XMLWrite write) throws XMLStreamException {
+        if (pendingStartTag != null) {
+            pendingStartTag.contents.add(write);
+        } else {
+            write.write(delegate);
+        }
+    }
+
+    private void afterText() throws XMLStreamException {
+        writePendingStartTag();
+        OpenElement element = openElements.peek();
+        if (element != null) {
+            element.hasText = true;
+        }
+    }
+
+    private void indent(int level) throws XMLStreamException {
+        for (int i = 0; i < level; i++) {
+            delegate.writeCharacters(INDENT);
+        }
+    }
+
+    @Override
+    public void writeStartElement(String localName) throws XMLStreamException {
+        beforeStartElement();
+        startElement(writer -> writer.writeStartElement(localName), writer -> writer.writeEmptyElement(localName));
+    }
+
+    @Override
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+        beforeStartElement();
+        startElement(writer -> writer.writeStartElement(namespaceURI, localName), writer -> writer.writeEmptyElement(namespaceURI, localName));
+    }
+
+    @Override
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        beforeStartElement();
+        startElement(writer -> writer.writeStartElement(prefix, localName, namespaceURI), writer -> writer.writeEmptyElement(prefix, localName, namespaceURI));
+    }
+
+    @Override
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+        beforeStartElement();
+        delegate.writeEmptyElement(namespaceURI, localName);
+    }
+
+    @Override
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        beforeStartElement();
+        delegate.writeEmptyElement(prefix, localName, namespaceURI);
+    }
+
+    @Override
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+        beforeStartElement();
+        delegate.writeEmptyElement(localName);
+    }
+
+    @Override
+    public void writeEndElement() throws XMLStreamException {
+        if (pendingStartTag != null) {
+            openElements.pop();
+            pendingStartTag.write(delegate, true);
+            pendingStartTag = null;
+            return;
+        }
+        beforeEndElement();
+        delegate.writeEndElement();
+    }
+
+    @Override
+    public void writeEndDocument() throws XMLStreamException {
+        while (!openElements.isEmpty()) {
+            writeEndElement();
+        }
+        delegate.writeEndDocument();
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        delegate.close();
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        delegate.flush();
+    }
+
+    @Override
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+        writeInStartTag(writer -> writer.writeAttribute(localName, value));
+    }
+
+    @Override
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException {
+        writeInStartTag(writer -> writer.writeAttribute(prefix, namespaceURI, localName, value));
+    }
+
+    @Override
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+        writeInStartTag(writer -> writer.writeAttribute(namespaceURI, localName, value));
+    }
+
+    @Override
+    public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+        writeInStartTag(writer -> writer.writeNamespace(prefix, namespaceURI));
+    }
+
+    @Override
+    public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+        writeInStartTag(writer -> writer.writeDefaultNamespace(namespaceURI));
+    }
+
+    @Override
+    public void writeComment(String data) throws XMLStreamException {
+        writePendingStartTag();
+        delegate.writeComment(data);
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target) throws XMLStreamException {
+        writePendingStartTag();
+        delegate.writeProcessingInstruction(target);
+    }
+
+    @Override
+    public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+        writePendingStartTag();
+        delegate.writeProcessingInstruction(target, data);
+    }
+
+    @Override
+    public void writeCData(String data) throws XMLStreamException {
+        afterText();
+        delegate.writeCData(data);
+    }
+
+    @Override
+    public void writeDTD(String dtd) throws XMLStreamException {
+        delegate.writeDTD(dtd);
+    }
+
+    @Override
+    public void writeEntityRef(String name) throws XMLStreamException {
+        afterText();
+        delegate.writeEntityRef(name);
+    }
+
+    @Override
+    public void writeStartDocument() throws XMLStreamException {
+        delegate.writeStartDocument();
+        delegate.writeCharacters(NEW_LINE);
+    }
+
+    @Override
+    public void writeStartDocument(String version) throws XMLStreamException {
+        delegate.writeStartDocument(version);
+        delegate.writeCharacters(NEW_LINE);
+    }
+
+    @Override
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+        delegate.writeStartDocument(encoding, version);
+        delegate.writeCharacters(NEW_LINE);
+    }
+
+    @Override
+    public void writeCharacters(String text) throws XMLStreamException {
+        afterText();
+        delegate.writeCharacters(text);
+    }
+
+    @Override
+    public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+        afterText();
+        delegate.writeCharacters(text, start, len);
+    }
+
+    @Override
+    public String getPrefix(String uri) throws XMLStreamException {
+        writePendingStartTag();
+        return delegate.getPrefix(uri);
+    }
+
+    @Override
+    public void setPrefix(String prefix, String uri) throws XMLStreamException {
+        writeInStartTag(writer -> writer.setPrefix(prefix, uri));
+    }
+
+    @Override
+    public void setDefaultNamespace(String uri) throws XMLStreamException {
+        writeInStartTag(writer -> writer.setDefaultNamespace(uri));
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+        writeInStartTag(writer -> writer.setNamespaceContext(context));
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return delegate.getNamespaceContext();
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return delegate.getProperty(name);
+    }
+
+    private interface XMLWrite {
+        void write(XMLStreamWriter writer) throws XMLStreamException;
+    }
+
+    private static class PendingStartTag {
+        private final XMLWrite startTag;
+        private final XMLWrite emptyTag;
+        // the attributes, namespaces and prefixes of the element, in the order they were written
+        private final List<XMLWrite> contents = new ArrayList<>();
+
+        PendingStartTag(XMLWrite startTag, XMLWrite emptyTag) {
+            this.startTag = startTag;
+            this.emptyTag = emptyTag;
+        }
+
+        void write(XMLStreamWriter writer, boolean empty) throws XMLStreamException {
+            (empty ? emptyTag : startTag).write(writer);
+            for (XMLWrite write : contents) {
+                write.write(writer);
+            }
+        }
+    }
+
+    private static class OpenElement {
+        private boolean hasChildElements;
+        private boolean hasText;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.apifest.api.MappingEndpoint;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * The endpoints added, removed and changed since a previous mapping, keyed by method and external endpoint,
+ * so that gateways can patch their mapping instead of reloading it. The delta file is laid out like the mapping:
+ * <pre>
+ * &lt;delta version="v1"&gt;
+ *     &lt;added&gt;&lt;endpoint .../&gt;&lt;/added&gt;
+ *     &lt;removed&gt;&lt;endpoint method="GET" external="/v1/..."/&gt;&lt;/removed&gt;
+ *     &lt;changed&gt;&lt;endpoint .../&gt;&lt;/changed&gt;
+ * &lt;/delta&gt;
+ * </pre>
+ * Added and changed endpoints are written in full, removed ones only with their key.
+ */
+public class MappingDelta {
+    // appended to the base name of the mapping file, e.g. output_mapping_v1_delta.xml
+    static final String DELTA_SUFFIX = "_delta.xml";
+    static final String DELTA_ELEMENT = "delta";
+    static final String ADDED_ELEMENT = "added";
+    static final String REMOVED_ELEMENT = "removed";
+    static final String CHANGED_ELEMENT = "changed";
+    // the names of the attributes of MappingEndpoint
+    static final String METHOD_ATTRIBUTE = "method";
+    static final String EXTERNAL_ATTRIBUTE = "external";
+    private static final QName ENDPOINT_NAME = new QName(MappingWriter.ENDPOINT_ELEMENT);
+    private static final String ENCODING = "UTF-8";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    // canonical form of an endpoint, properties and map entries are sorted
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final List<MappingEndpoint> added = new ArrayList<>();
+    private final List<MappingEndpoint> removed = new ArrayList<>();
+    private final List<MappingEndpoint> changed = new ArrayList<>();
+
+    /**
+     * Compares the visible endpoints with the endpoints of the previous mapping.
+     */
+    public MappingDelta(Map<String, MappingEndpoint> previous, Iterable<ParsedEndpoint> parsedEndpoints) {
+        Map<String, MappingEndpoint> remaining = new LinkedHashMap<>(previous);
+        for (ParsedEndpoint parsed : parsedEndpoints) {
+            MappingEndpoint endpoint = parsed.getMappingEndpoint();
+            if (endpoint == null || endpoint.isHidden()) {
+                continue;
+            }
+            MappingEndpoint previousEndpoint = remaining.remove(key(endpoint));
+            if (previousEndpoint == null) {
+                added.add(endpoint);
+            } else if (!canonical(previousEndpoint).equals(canonical(endpoint))) {
+                changed.add(endpoint);
+            }
+        }
+        removed.addAll(remaining.values());
+    }
+
+    static String key(MappingEndpoint endpoint) {
+        return endpoint.getMethod() + " " + endpoint.getExternalEndpoint();
+    }
+
+    private static String canonical(MappingEndpoint endpoint) {
+        try {
+            return CANONICAL_MAPPER.writeValueAsString(endpoint);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the endpoints of a mapping file, keyed by method and external endpoint. The file is read through a
+     * buffer, or decompressed while it is read when its name ends with .gz, and its endpoints are unmarshalled one
+     * at a time. The file is closed on return, so it can be replaced next, e.g. when it is also the output file; a
+     * memory-mapped file would stay open until the mapping is garbage collected and block the replace on Windows.
+     */
+    public static Map<String, MappingEndpoint> readMapping(Path mappingFile) throws IOException {
+        if (mappingFile.getFileName().toString().endsWith(GZIP_EXTENSION)) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(mappingFile), BUFFER_SIZE)) {
+                return readEndpoints(in);
+            }
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(mappingFile), BUFFER_SIZE)) {
+            return readEndpoints(in);
+        }
+    }
+
+    static Map<String, MappingEndpoint> readEndpoints(InputStream in) throws IOException {
+        Map<String, MappingEndpoint> endpoints = new LinkedHashMap<>();
+        try {
+            Unmarshaller unmarshaller = MappingWriter.getContext().createUnmarshaller();
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.getEventType() == XMLStreamConstants.START_ELEMENT
+                            && MappingWriter.ENDPOINT_ELEMENT.equals(reader.getLocalName())) {
+                        // leaves the reader after the end of the endpoint element
+                        MappingEndpoint endpoint = unmarshaller.unmarshal(reader, MappingEndpoint.class).getValue();
+                        endpoints.put(key(endpoint), endpoint);
+                    } else {
+                        reader.next();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (JAXBException | XMLStreamException e) {
+            throw new IOException(e);
+        }
+        return endpoints;
+    }
+
+    public List<MappingEndpoint> getAdded() {
+        return added;
+    }
+
+    public List<MappingEndpoint> getRemoved() {
+        return removed;
+    }
+
+    public List<MappingEndpoint> getChanged() {
+        return changed;
+    }
+
+    public void write(OutputStream out, String version) throws IOException {
+        try {
+            Marshaller marshaller = MappingWriter.getContext().createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            XMLStreamWriter writer = new IndentingXMLStreamWriter(OUTPUT_FACTORY.createXMLStreamWriter(out, ENCODING));
+            writer.writeStartDocument(ENCODING, "1.0");
+            writer.writeStartElement(DELTA_ELEMENT);
+            writer.writeAttribute(MappingWriter.VERSION_ATTRIBUTE, version);
+            writeEndpoints(writer, marshaller, ADDED_ELEMENT, added);
+            writer.writeStartElement(REMOVED_ELEMENT);
+            for (MappingEndpoint endpoint : removed) {
+                writer.writeEmptyElement(MappingWriter.ENDPOINT_ELEMENT);
+                writer.writeAttribute(EXTERNAL_ATTRIBUTE, endpoint.getExternalEndpoint());
+                writer.writeAttribute(METHOD_ATTRIBUTE, endpoint.getMethod());
+            }
+            writer.writeEndElement();
+            writeEndpoints(writer, marshaller, CHANGED_ELEMENT, changed);
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (JAXBException | XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void writeEndpoints(XMLStreamWriter writer, Marshaller marshaller, String element, List<MappingEndpoint> endpoints)
+            throws XMLStreamException, JAXBException {
+        writer.writeStartElement(element);
+        for (MappingEndpoint endpoint : endpoints) {
+            marshaller.marshal(new JAXBElement<>(ENDPOINT_NAME, MappingEndpoint.class, endpoint), writer);
+        }
+        writer.writeEndElement();
+    }
+}
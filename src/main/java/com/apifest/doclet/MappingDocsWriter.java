@@ -0,0 +1,70 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.apifest.api.MappingDocumentation;
+import com.apifest.api.MappingEndpointDocumentation;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.module.jakarta.xmlbind.JakartaXmlBindAnnotationIntrospector;
+
+/**
+ * Streams the mapping documentation JSON. The output has the same schema as a serialized
+ * {@link MappingDocumentation}, but only the endpoint being written is held by the writer.
+ */
+public class MappingDocsWriter implements EndpointWriter {
+    private static final String VERSION_FIELD = "version";
+    private static final String ENDPOINTS_FIELD = "endpoints";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setAnnotationIntrospector(new JakartaXmlBindAnnotationIntrospector(TypeFactory.defaultInstance()))
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final JsonGenerator generator;
+
+    public MappingDocsWriter(OutputStream out, String version) throws IOException {
+        generator = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.setPrettyPrinter(new DefaultPrettyPrinter());
+        generator.writeStartObject();
+        generator.writeStringField(VERSION_FIELD, version);
+        generator.writeFieldName(ENDPOINTS_FIELD);
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void write(ParsedEndpoint parsed) throws IOException {
+        MappingEndpointDocumentation endpoint = parsed.getMappingEndpointDocumentation();
+        if (endpoint != null && !endpoint.isHidden()) {
+            MAPPER.writeValue(generator, endpoint);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+}
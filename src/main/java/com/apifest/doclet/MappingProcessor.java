@@ -0,0 +1,242 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+/**
+ * Generates the mapping and documentation files during the normal compilation, without a separate
+ * javadoc pass over the sources. The doclet options are passed to javac without their dash, e.g.
+ * {@code -processor com.apifest.doclet.MappingProcessor -AmappingVersion=v1 -Amode=mapping,doc}.
+ * The tags are read from {@link javax.lang.model.util.Elements#getDocComment} and the endpoints are
+ * parsed and written exactly like with the doclet.
+ * <p>
+ * The output files are created through the {@link javax.annotation.processing.Filer} in the class output
+ * directory, so their names must be relative to it. Only full builds see all the interfaces: the interfaces
+ * of a build are recorded in {@value #INTERFACES_FILE}, and when one of them still exists but was not compiled
+ * again, i.e. the build is incremental, the files are not written, since they would only hold part of the mapping.
+ */
+public class MappingProcessor extends AbstractProcessor {
+    static final String INTERFACES_FILE = "META-INF/apifest/interfaces.txt";
+
+    private final Doclet doclet = new Doclet();
+    private final Map<String, Option> optionsByName = new HashMap<>();
+    private EndpointStore parsedEndpoints;
+    private PackageFilter packageFilter;
+    private final Set<String> interfaceNames = new TreeSet<>();
+    private boolean configured;
+
+    public MappingProcessor() {
+        for (Option option : doclet.getSupportedOptions()) {
+            optionsByName.put(option.getNames().get(0).substring(1), option);
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of("*");
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return optionsByName.keySet();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        try {
+            for (Map.Entry<String, String> entry : processingEnv.getOptions().entrySet()) {
+                Option option = optionsByName.get(entry.getKey());
+                if (option != null) {
+                    option.process(option.getNames().get(0),
+                            option.getArgumentCount() == 0 ? List.of() : List.of(String.valueOf(entry.getValue())));
+                }
+            }
+            configured = doclet.validateConfiguration();
+            packageFilter = doclet.getPackageFilter();
+            parsedEndpoints = doclet.createEndpointStore();
+            doclet.setOutputOpener(this::openOutput);
+        } catch (IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "ApiFest mapping: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!configured) {
+            return false;
+        }
+        List<TypeElement> interfaces = new ArrayList<>();
+        for (Element element : roundEnv.getRootElements()) {
+            if (packageFilter.accept(processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString())) {
+                collectInterfaces(element, interfaces);
+            }
+        }
+        // the root elements follow the order of the source files, the interfaces are parsed by name as in the doclet
+        interfaces.sort(Comparator.comparing(interfaceElement -> interfaceElement.getQualifiedName().toString()));
+        for (TypeElement interfaceElement : interfaces) {
+            interfaceNames.add(interfaceElement.getQualifiedName().toString());
+            parseInterfaceMethods(interfaceElement);
+        }
+        if (roundEnv.processingOver()) {
+            String notCompiled = findNotCompiledInterface();
+            if (notCompiled != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.MANDATORY_WARNING, "ApiFest mapping: " + notCompiled
+                        + " was not compiled in this build, the output files are left unchanged; only full builds write them");
+            } else if (doclet.generate(parsedEndpoints)) {
+                writeInterfaceNames();
+            } else {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "ApiFest mapping: cannot create the output files");
+            }
+            closeEndpointStore();
+        }
+        // the annotations are not claimed, other processors see them too
+        return false;
+    }
+
+    /**
+     * Returns an interface of the previous full build which still exists but was not compiled in this one, null if none.
+     */
+    private String findNotCompiledInterface() {
+        FileObject previous;
+        try {
+            previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INTERFACES_FILE);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(previous.openReader(true))) {
+            for (String name = reader.readLine(); name != null; name = reader.readLine()) {
+                if (!name.isEmpty() && !interfaceNames.contains(name) && processingEnv.getElementUtils().getTypeElement(name) != null) {
+                    return name;
+                }
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // the first build
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "ApiFest mapping: cannot read " + INTERFACES_FILE + ", " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void writeInterfaceNames() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INTERFACES_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String name : interfaceNames) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "ApiFest mapping: cannot write " + INTERFACES_FILE + ", " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the output file through the Filer, in the class output directory.
+     */
+    private OutputStream openOutput(Path file) throws IOException {
+        if (file.isAbsolute()) {
+            throw new IOException("the output file " + file + " must be relative to the class output directory");
+        }
+        String name = file.normalize().toString().replace('\\', '/');
+        return processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", name).openOutputStream();
+    }
+
+    private void collectInterfaces(Element element, List<TypeElement> interfaces) {
+        if (element.getKind() == ElementKind.INTERFACE) {
+            interfaces.add((TypeElement) element);
+        }
+        for (Element enclosedElement : element.getEnclosedElements()) {
+            if (enclosedElement.getKind().isClass() || enclosedElement.getKind().isInterface()) {
+                collectInterfaces(enclosedElement, interfaces);
+            }
+        }
+    }
+
+    private void parseInterfaceMethods(TypeElement interfaceElement) {
+        for (Element enclosedElement : interfaceElement.getEnclosedElements()) {
+            if (!(enclosedElement instanceof ExecutableElement methodElement)) {
+                continue;
+            }
+            String docComment = processingEnv.getElementUtils().getDocComment(methodElement);
+            if (docComment == null || !docComment.contains(Doclet.APIFEST_EXTERNAL_TAG)) {
+                continue;
+            }
+            Map<String, String> tags = DocCommentTags.parse(docComment);
+            List<? extends AnnotationMirror> annotations = processingEnv.getElementUtils().getAllAnnotationMirrors(methodElement);
+            try {
+                ParsedEndpoint parsed = doclet.parseEndpoint(tags, annotations);
+                if (parsed != null) {
+                    parsedEndpoints.add(parsed);
+                }
+            } catch (ParseException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), methodElement);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "ApiFest mapping: cannot store parsed endpoints, " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeEndpointStore() {
+        try {
+            parsedEndpoints.close();
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "ApiFest mapping: cannot delete spilled endpoints, " + e.getMessage());
+        }
+    }
+}
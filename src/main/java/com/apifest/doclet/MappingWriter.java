@@ -0,0 +1,125 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.apifest.api.Mapping;
+import com.apifest.api.MappingEndpoint;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+/**
+ * Streams the mapping XML with a {@link XMLStreamWriter}. The mapping envelope is written directly,
+ * every {@code <endpoint>} element is written as soon as it is handed over, so the whole
+ * {@link Mapping} tree is never built in memory. The output is laid out like the formatted JAXB
+ * marshalling of the whole {@link Mapping}.
+ */
+public class MappingWriter implements EndpointWriter {
+    static final String MAPPINGS_ELEMENT = "mappings";
+    static final String VERSION_ATTRIBUTE = "version";
+    static final String BACKEND_ELEMENT = "backend";
+    static final String HOST_ATTRIBUTE = "host";
+    static final String PORT_ATTRIBUTE = "port";
+    static final String ENDPOINTS_ELEMENT = "endpoints";
+    static final String ENDPOINT_ELEMENT = "endpoint";
+    private static final QName ENDPOINT_NAME = new QName(ENDPOINT_ELEMENT);
+    private static final String ENCODING = "UTF-8";
+    // the declaration written by the JAXB marshaller, which XMLStreamWriter cannot write with standalone
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String NEW_LINE = "\n";
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static JAXBContext jaxbContext;
+
+    private final OutputStream out;
+    private final XMLStreamWriter writer;
+    private final Marshaller endpointMarshaller;
+
+    public MappingWriter(OutputStream out, String version, String backendHost, int backendPort) throws IOException {
+        this.out = out;
+        try {
+            endpointMarshaller = getContext().createMarshaller();
+            endpointMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            out.write(XML_DECLARATION.getBytes(StandardCharsets.UTF_8));
+            writer = new IndentingXMLStreamWriter(OUTPUT_FACTORY.createXMLStreamWriter(out, ENCODING));
+            writer.writeStartElement(MAPPINGS_ELEMENT);
+            writer.writeAttribute(VERSION_ATTRIBUTE, version);
+            writer.writeEmptyElement(BACKEND_ELEMENT);
+            if (backendHost != null) {
+                writer.writeAttribute(HOST_ATTRIBUTE, backendHost);
+            }
+            writer.writeAttribute(PORT_ATTRIBUTE, String.valueOf(backendPort));
+            writer.writeStartElement(ENDPOINTS_ELEMENT);
+        } catch (JAXBException | XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns the JAXB context of the mapping classes; it is created once and shared by all writers.
+     */
+    static synchronized JAXBContext getContext() throws JAXBException {
+        if (jaxbContext == null) {
+            // set context class loader to avoid ClassNotFoundException for JAXBContext
+            ClassLoader currentLoader = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(MappingWriter.class.getClassLoader());
+            try {
+                jaxbContext = JAXBContext.newInstance(Mapping.class);
+            } finally {
+                Thread.currentThread().setContextClassLoader(currentLoader);
+            }
+        }
+        return jaxbContext;
+    }
+
+    @Override
+    public void write(ParsedEndpoint parsed) throws IOException {
+        MappingEndpoint endpoint = parsed.getMappingEndpoint();
+        if (endpoint == null || endpoint.isHidden()) {
+            return;
+        }
+        try {
+            // the attributes and child elements of an endpoint are defined by the JAXB annotations of MappingEndpoint
+            endpointMarshaller.marshal(new JAXBElement<>(ENDPOINT_NAME, MappingEndpoint.class, endpoint), writer);
+        } catch (JAXBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.writeEndDocument();
+            writer.flush();
+            // the JAXB marshaller ends the document with a new line
+            out.write(NEW_LINE.getBytes(StandardCharsets.UTF_8));
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+}
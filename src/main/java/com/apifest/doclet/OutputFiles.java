@@ -0,0 +1,432 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes the output files of a run through a temporary file next to them, hashing the content with SHA-256
+ * on the way. The output file is only replaced, with an atomic rename, when its content changed, so that
+ * unchanged files keep their modification time. The hashes of all written files can be listed in a manifest.
+ * Files may be written from several threads. With an {@link Opener} the files are written through it instead,
+ * e.g. through the Filer of an annotation processor, and always replaced.
+ * <p>
+ * After {@link #defer()} the written files stay in their temporary files until {@link #commitDeferred()}, so that
+ * the output files of a run are only replaced once all of them were written; {@link #discardDeferred()} drops them.
+ */
+public class OutputFiles {
+    static final String ALGORITHM = "SHA-256";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int BUFFER_SIZE = 8192;
+    private static final AtomicInteger TEMP_FILES = new AtomicInteger();
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final SortedMap<Path, String> hashes = new ConcurrentSkipListMap<>();
+    private final Map<Path, Long> sizes = new ConcurrentHashMap<>();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final Opener opener;
+    private final List<PendingFile> deferredFiles = new ArrayList<>();
+    private final List<Path> deferredDeletes = new ArrayList<>();
+    private volatile boolean deferring;
+
+    /**
+     * The content of an output file, written to the given stream; the stream may be closed by the content.
+     */
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Opens an output file, by the name it was written with, in place of the temporary file next to it.
+     */
+    public interface Opener {
+        OutputStream open(Path file) throws IOException;
+    }
+
+    public OutputFiles() {
+        this(null);
+    }
+
+    public OutputFiles(Opener opener) {
+        this.opener = opener;
+    }
+
+    /**
+     * Whether the files are written through an {@link Opener}, so that the file names do not tell where they are.
+     */
+    public boolean hasOpener() {
+        return opener != null;
+    }
+
+    /**
+     * Keeps the files written from now on in their temporary files until {@link #commitDeferred()}.
+     */
+    public void defer() {
+        deferring = true;
+    }
+
+    /**
+     * Replaces the files written since {@link #defer()}, each unless its content is unchanged, and deletes the
+     * files deleted since.
+     */
+    public void commitDeferred() throws IOException {
+        List<PendingFile> files;
+        List<Path> deletes;
+        synchronized (deferredFiles) {
+            deferring = false;
+            files = new ArrayList<>(deferredFiles);
+            deletes = new ArrayList<>(deferredDeletes);
+            deferredFiles.clear();
+            deferredDeletes.clear();
+        }
+        try {
+            for (PendingFile file : files) {
+                file.replace();
+            }
+            for (Path file : deletes) {
+                Files.deleteIfExists(file);
+            }
+        } finally {
+            for (PendingFile file : files) {
+                file.deleteTemp();
+            }
+        }
+    }
+
+    /**
+     * Drops the files written since {@link #defer()}, the existing output files are left as they are.
+     */
+    public void discardDeferred() throws IOException {
+        List<PendingFile> files;
+        synchronized (deferredFiles) {
+            deferring = false;
+            files = new ArrayList<>(deferredFiles);
+            deferredFiles.clear();
+            deferredDeletes.clear();
+        }
+        for (PendingFile file : files) {
+            file.deleteTemp();
+        }
+    }
+
+    /**
+     * Deletes an output file of a previous run, when the deferred files are committed if they are deferred.
+     */
+    public void delete(Path file) throws IOException {
+        synchronized (deferredFiles) {
+            if (deferring) {
+                deferredDeletes.add(file);
+                return;
+            }
+        }
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Writes the file unless its content is unchanged.
+     *
+     * @return whether the file was replaced, or will be replaced unless unchanged when it is deferred
+     */
+    public boolean write(Path file, Content content) throws IOException {
+        PendingFile pending = new PendingFile(file);
+        try {
+            try (OutputStream out = new BufferedOutputStream(pending.out)) {
+                content.writeTo(out);
+            }
+            return pending.commit();
+        } finally {
+            pending.discard();
+        }
+    }
+
+    public boolean write(String file, Content content) throws IOException {
+        return write(Path.of(file), content);
+    }
+
+    /**
+     * Writes the file with the given compression, streaming the content through the compressor. With
+     * {@link Compression#GZIP} the uncompressed file of a previous run is deleted, with the other files when they
+     * are deferred. With {@link Compression#GZIP_SIBLING} the content is written once, to the file and to its .gz
+     * sibling at the same time.
+     *
+     * @return the written files, each unless its content is unchanged
+     */
+    public List<Path> write(Path file, Compression compression, Content content) throws IOException {
+        switch (compression) {
+            case GZIP:
+                Path compressedFile = gzipFile(file);
+                write(compressedFile, out -> {
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+                        content.writeTo(gzip);
+                    }
+                });
+                // the files of an opener are not next to the names
+                if (opener == null) {
+                    delete(file);
+                }
+                return List.of(compressedFile);
+            case GZIP_SIBLING:
+                PendingFile pending = new PendingFile(file);
+                PendingFile compressedPending = null;
+                try {
+                    compressedPending = new PendingFile(gzipFile(file));
+                    try (OutputStream out = new BufferedOutputStream(new TeeOutputStream(new BufferedOutputStream(pending.out),
+                            new GZIPOutputStream(compressedPending.out, BUFFER_SIZE)))) {
+                        content.writeTo(out);
+                    }
+                    pending.commit();
+                    compressedPending.commit();
+                } finally {
+                    pending.discard();
+                    if (compressedPending != null) {
+                        compressedPending.discard();
+                    }
+                }
+                return List.of(file, gzipFile(file));
+            default:
+                write(file, content);
+                return List.of(file);
+        }
+    }
+
+    /**
+     * Returns the name of the gzip compressed file, the file name with .gz appended.
+     */
+    public static Path gzipFile(Path file) {
+        return file.resolveSibling(file.getFileName() + GZIP_EXTENSION);
+    }
+
+    /**
+     * Returns the SHA-256 hash of each written file by absolute path, in path order.
+     */
+    public SortedMap<Path, String> getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Returns the number of bytes written to the file, also while it is deferred; -1 if it was not written.
+     */
+    public long getSize(Path file) {
+        return sizes.getOrDefault(file.toAbsolutePath().normalize(), -1L);
+    }
+
+    /**
+     * Returns the number of files that were left untouched because their content did not change.
+     */
+    public int getUnchangedCount() {
+        return unchanged.get();
+    }
+
+    /**
+     * Writes the manifest of the files written so far, with the paths relative to the directory of the manifest.
+     */
+    public boolean writeManifest(Path manifest) throws IOException {
+        Path manifestDir = manifest.toAbsolutePath().normalize().getParent();
+        Map<String, String> files = new LinkedHashMap<>();
+        for (Map.Entry<Path, String> entry : hashes.entrySet()) {
+            files.put(manifestDir.relativize(entry.getKey()).toString().replace('\\', '/'), entry.getValue());
+        }
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("algorithm", ALGORITHM);
+        content.put("files", files);
+        return write(manifest, out -> MAPPER.writeValue(out, content));
+    }
+
+    static String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * An output file being written to a temporary file next to it, or through the opener.
+     */
+    private class PendingFile {
+        private final Path target;
+        private final Path temp;
+        private final MessageDigest digest = newDigest();
+        private final CountingOutputStream counter;
+        private final OutputStream out;
+        private String hash;
+        private boolean deferred;
+
+        PendingFile(Path file) throws IOException {
+            target = file.toAbsolutePath().normalize();
+            if (opener != null) {
+                temp = null;
+                counter = new CountingOutputStream(opener.open(file));
+                out = new DigestOutputStream(counter, digest);
+                return;
+            }
+            // not Files.createTempFile, its owner-only permissions would be moved to the output file
+            temp = target.resolveSibling("." + target.getFileName() + "." + ProcessHandle.current().pid() + "-"
+                    + TEMP_FILES.incrementAndGet() + TEMP_SUFFIX);
+            counter = new CountingOutputStream(Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+            out = new DigestOutputStream(counter, digest);
+        }
+
+        /**
+         * Replaces the target with the closed temporary file unless their content is the same, or defers it.
+         */
+        boolean commit() throws IOException {
+            hash = HexFormat.of().formatHex(digest.digest());
+            hashes.put(target, hash);
+            sizes.put(target, counter.count);
+            if (temp == null) {
+                return true;
+            }
+            synchronized (deferredFiles) {
+                if (deferring) {
+                    deferredFiles.add(this);
+                    deferred = true;
+                    return true;
+                }
+            }
+            return replace();
+        }
+
+        boolean replace() throws IOException {
+            if (Files.isRegularFile(target) && Files.size(target) == Files.size(temp) && hash.equals(hash(target))) {
+                unchanged.incrementAndGet();
+                return false;
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        }
+
+        void discard() throws IOException {
+            out.close();
+            if (!deferred) {
+                deleteTemp();
+            }
+        }
+
+        void deleteTemp() throws IOException {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes written to the stream.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Writes the same bytes to two streams.
+     */
+    private static class TeeOutputStream extends OutputStream {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        TeeOutputStream(OutputStream first, OutputStream second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            first.flush();
+            second.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                first.close();
+            } finally {
+                second.close();
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of the writing of one output file.
+ */
+@Name("com.apifest.doclet.OutputWrite")
+@Label("Output Write")
+@Category({"ApiFest", "Doclet"})
+@Description("Writing of a mapping or mapping documentation file")
+class OutputWriteEvent extends jdk.jfr.Event {
+    @Label("File")
+    String file;
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Endpoints")
+    int endpointCount;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+}
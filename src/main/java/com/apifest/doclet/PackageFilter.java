@@ -0,0 +1,98 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the packages whose interfaces are parsed, with the includePackages and excludePackages globs.
+ * In a glob {@code *} matches within one package name segment and {@code .**} matches zero or more segments,
+ * e.g. {@code com.example.**.api} matches {@code com.example.api} and {@code com.example.users.api}, and
+ * {@code com.example.**} matches {@code com.example} and all its subpackages. Without includes every package
+ * is included; excludes take precedence.
+ */
+public class PackageFilter {
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+    // every package is matched against the globs once
+    private final Map<String, Boolean> accepted = new ConcurrentHashMap<>();
+
+    public PackageFilter(List<String> includeGlobs, List<String> excludeGlobs) {
+        this.includes = toPatterns(includeGlobs);
+        this.excludes = toPatterns(excludeGlobs);
+    }
+
+    public boolean accept(String packageName) {
+        return accepted.computeIfAbsent(packageName, name -> (includes.isEmpty() || matches(includes, name)) && !matches(excludes, name));
+    }
+
+    private static boolean matches(List<Pattern> patterns, String packageName) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(packageName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> toPatterns(List<String> globs) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String glob : globs) {
+            patterns.add(toPattern(glob));
+        }
+        return patterns;
+    }
+
+    static Pattern toPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        int i = 0;
+        while (i < glob.length()) {
+            String wildcard;
+            int length;
+            if (glob.startsWith(".**", i)) {
+                // zero or more segments
+                wildcard = "(\\..+)?";
+                length = 3;
+            } else if (glob.startsWith("**", i)) {
+                wildcard = ".*";
+                length = 2;
+            } else if (glob.charAt(i) == '*') {
+                wildcard = "[^.]*";
+                length = 1;
+            } else {
+                i++;
+                continue;
+            }
+            if (i > literalStart) {
+                regex.append(Pattern.quote(glob.substring(literalStart, i)));
+            }
+            regex.append(wildcard);
+            i += length;
+            literalStart = i;
+        }
+        if (literalStart < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literalStart)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
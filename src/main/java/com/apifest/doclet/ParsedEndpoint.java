@@ -16,6 +16,8 @@
 
 package com.apifest.doclet;
 
+import java.util.Map;
+
 import com.apifest.api.MappingEndpoint;
 import com.apifest.api.MappingEndpointDocumentation;
 
@@ -27,6 +29,12 @@ import com.apifest.api.MappingEndpointDocumentation;
 public class ParsedEndpoint {
     private MappingEndpoint mappingEndpoint;
     private MappingEndpointDocumentation mappingEndpointDocumentation;
+    // the apifest.external value, without the mapping version
+    private String externalEndpoint;
+    // the tags which override the defaults of a backend profile, see Parser.parseProfileTags
+    private Map<String, String> profileTags;
+    // the apifest.re expression of each variable, see Parser.parseVarExpressions
+    private Map<String, String> varExpressions;
     public MappingEndpoint getMappingEndpoint() {
         return mappingEndpoint;
     }
@@ -39,4 +47,50 @@ public class ParsedEndpoint {
     public void setMappingEndpointDocumentation(MappingEndpointDocumentation mappingEndpointDocumentation) {
         this.mappingEndpointDocumentation = mappingEndpointDocumentation;
     }
+    public String getExternalEndpoint() {
+        return externalEndpoint;
+    }
+    public void setExternalEndpoint(String externalEndpoint) {
+        this.externalEndpoint = externalEndpoint;
+    }
+    public Map<String, String> getProfileTags() {
+        return profileTags;
+    }
+    public void setProfileTags(Map<String, String> profileTags) {
+        this.profileTags = profileTags;
+    }
+    public Map<String, String> getVarExpressions() {
+        return varExpressions;
+    }
+    public void setVarExpressions(Map<String, String> varExpressions) {
+        this.varExpressions = varExpressions;
+    }
+    /**
+     * Prefixes the external endpoint of the mapping and of the documentation with the mapping version.
+     * The endpoint is parsed once and rendered for each version, so the prefix is not cumulative.
+     */
+    public void applyVersion(String version) {
+        String versionedEndpoint = "/" + version + externalEndpoint;
+        if (mappingEndpoint != null) {
+            mappingEndpoint.setExternalEndpoint(versionedEndpoint);
+        }
+        if (mappingEndpointDocumentation != null) {
+            mappingEndpointDocumentation.setEndpoint(versionedEndpoint);
+        }
+    }
+    /**
+     * Resolves the action, the filter and the backend of the mapping endpoint with the defaults of the profile,
+     * unless the endpoint sets them itself.
+     */
+    public void applyProfile(BackendProfile profile) {
+        if (mappingEndpoint == null) {
+            return;
+        }
+        Map<String, String> tags = profileTags != null ? profileTags : Map.of();
+        mappingEndpoint.setAction(null);
+        mappingEndpoint.setFilters(null);
+        Parser.parseActionTag(tags, mappingEndpoint, profile.getDefaultActionClass());
+        Parser.parseFilterTag(tags, mappingEndpoint, profile.getDefaultFilterClass());
+        Parser.parseEndpointBackendTags(tags, mappingEndpoint, profile.getBackendHost(), profile.getBackendPort());
+    }
 }
@@ -18,10 +18,11 @@ package com.apifest.doclet;
 
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,9 +44,7 @@ public class Parser
     private static final String APIFEST_DOCS_EXAMPLE_REQUEST = "apifest.docs.exampleRequest";
     private static final String APIFEST_DOCS_ORDER = "apifest.docs.order";
     private static final String APIFEST_RESULT_PARAMS_DESCRIPTION = "apifest.docs.resultsDescription";
-    private static final String RESULT_PARAMS_PREFIX = "apifest.docs.results.";
     private static final String APIFEST_PARAMS_DESCRIPTION = "apifest.docs.paramsDescription";
-    private static final String REQUEST_PARAMS_PREFIX = "apifest.docs.params.";
     private static final String APIFEST_INTERNAL = "apifest.internal";
 
     private static final String APIFEST_ACTION = "apifest.action";
@@ -56,9 +55,6 @@ public class Parser
     private static final String APIFEST_BACKEND_HOST = "apifest.backend.host";
     private static final String APIFEST_BACKEND_PORT = "apifest.backend.port";
     private static final Pattern VAR_PATTERN = Pattern.compile("(\\{)(\\w*-?_?\\w*)(\\})");
-    private static final Pattern PARAM_PATTERN = Pattern.compile("apifest\\.docs\\.params\\.([\\w\\d_]+)");
-    private static final Pattern RESULT_PARAM_PATTERN = Pattern.compile("apifest\\.docs\\.results\\.([\\w\\d_]+)");
-    private static final Pattern EXCEPTION_PATTERN = Pattern.compile("apifest\\.docs\\.exceptions\\.([\\w\\d_]+)");
     private static final String APIFEST_DOCS_DESCRIPTION = "apifest.docs.description";
     private static final String APIFEST_DOCS_SUMMARY = "apifest.docs.summary";
     private static final String APIFEST_DOCS_GROUP = "apifest.docs.group";
@@ -67,41 +63,77 @@ public class Parser
 
     private static final String NOT_SUPPORTED_VALUE = "value \"%s\" not supported for %s tag";
 
-    // GET, POST, PUT, DELETE, HEAD, OPTIONS
-    private static final List<String> httpMethods = Arrays.asList("GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS");
     private static final String NULL = "null";
 
     static void parseMethodAnnotations(List<? extends AnnotationMirror> annotations,
                                        MappingEndpoint mappingEndpoint,
                                        MappingEndpointDocumentation mappingEndpointDocumentation,
-                                       Map<String, List<String>> customAnnotations) {
+                                       AnnotationResolver annotationResolver) {
+        parseMethodAnnotations(resolveMethodAnnotations(annotations, annotationResolver), mappingEndpoint,
+                mappingEndpointDocumentation);
+    }
+
+    static void parseMethodAnnotations(MethodAnnotations annotations,
+                                       MappingEndpoint mappingEndpoint,
+                                       MappingEndpointDocumentation mappingEndpointDocumentation) {
+        if (annotations.getHttpMethod() != null) {
+            mappingEndpoint.setMethod(annotations.getHttpMethod());
+            mappingEndpointDocumentation.setMethod(annotations.getHttpMethod());
+        }
+        if (!annotations.getCustomProperties().isEmpty()) {
+            // sorted, so that the custom properties are written in the same order on every run
+            mappingEndpoint.setCustomProperties(new TreeMap<>(annotations.getCustomProperties()));
+            mappingEndpointDocumentation.setCustomProperties(new TreeMap<>(annotations.getCustomProperties()));
+        }
+    }
+
+    /**
+     * Reads the HTTP method and the recorded custom annotation attributes into plain values. The annotation
+     * mirrors complete their symbols lazily in the javac model, so this is done while the caller holds the model
+     * and the parsing that follows needs no access to it.
+     */
+    static MethodAnnotations resolveMethodAnnotations(List<? extends AnnotationMirror> annotations,
+                                                      AnnotationResolver annotationResolver) {
+        String httpMethod = null;
+        Map<String, String> customProperties = new TreeMap<>();
         for (AnnotationMirror annotation : annotations) {
-            String annotationTypeName = annotation.getAnnotationType().asElement().getSimpleName().toString();
-            if (httpMethods.contains(annotationTypeName)) {
-                mappingEndpoint.setMethod(annotationTypeName);
-                mappingEndpointDocumentation.setMethod(annotationTypeName);
+            AnnotationResolver.Resolved resolved = annotationResolver.resolve(annotation);
+            if (resolved.getHttpMethod() != null) {
+                httpMethod = resolved.getHttpMethod();
                 continue;
             }
-            List<String> propertiesToRead = customAnnotations.get(annotation.getAnnotationType().toString());
-            if (propertiesToRead == null) {
+            if (!resolved.isRecorded()) {
                 continue;
             }
             for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
-                String elementName = annotation.getAnnotationType().toString() + "." + entry.getKey().getSimpleName();
-                if (!propertiesToRead.isEmpty() && !propertiesToRead.contains(elementName)) {
-                    continue;
+                String elementName = resolved.attributeName(entry.getKey());
+                if (elementName != null) {
+                    customProperties.put(elementName, getValueString(entry.getValue()));
                 }
-                String valueString = getValueString(entry.getValue());
-                if (mappingEndpoint.getCustomProperties() == null) {
-                    mappingEndpoint.setCustomProperties(new HashMap<>());
-                }
-                if (mappingEndpointDocumentation.getCustomProperties() == null) {
-                    mappingEndpointDocumentation.setCustomProperties(new HashMap<>());
-                }
-                mappingEndpoint.getCustomProperties().put(elementName, valueString);
-                mappingEndpointDocumentation.getCustomProperties().put(elementName, valueString);
             }
         }
+        return new MethodAnnotations(httpMethod, customProperties);
+    }
+
+    /**
+     * The HTTP method and the custom properties of an endpoint method, detached from the javac model.
+     */
+    static final class MethodAnnotations {
+        private final String httpMethod;
+        private final Map<String, String> customProperties;
+
+        MethodAnnotations(String httpMethod, Map<String, String> customProperties) {
+            this.httpMethod = httpMethod;
+            this.customProperties = customProperties;
+        }
+
+        String getHttpMethod() {
+            return httpMethod;
+        }
+
+        Map<String, String> getCustomProperties() {
+            return customProperties;
+        }
     }
 
     // Helper method to get the string representation of the annotation value
@@ -148,6 +180,32 @@ public class Parser
         }
     }
 
+    /**
+     * Returns the tags which override the defaults of a backend profile: the action, the filter and, when
+     * both are set and the port is valid, the backend host and port of the endpoint.
+     */
+    static Map<String, String> parseProfileTags(Map<String, String> tagMap) {
+        Map<String, String> profileTags = new HashMap<>(4);
+        for (String tag : new String[] {APIFEST_ACTION, APIFEST_FILTER}) {
+            String value = tagMap.get(tag);
+            if (value != null) {
+                profileTags.put(tag, value);
+            }
+        }
+        String endpointBackendHost = tagMap.get(APIFEST_BACKEND_HOST);
+        String endpointBackendPort = tagMap.get(APIFEST_BACKEND_PORT);
+        if (endpointBackendHost != null && endpointBackendPort != null) {
+            try {
+                Integer.parseInt(endpointBackendPort);
+                profileTags.put(APIFEST_BACKEND_HOST, endpointBackendHost);
+                profileTags.put(APIFEST_BACKEND_PORT, endpointBackendPort);
+            } catch (NumberFormatException e) {
+                // reported when the endpoint is parsed, the profile defaults are used
+            }
+        }
+        return profileTags;
+    }
+
     static void parseAuthTypeTag(Map<String, String> tagMap, MappingEndpoint mappingEndpoint) throws ParseException {
         String authType = tagMap.get(APIFEST_AUTH_TYPE);
         if (authType != null) {
@@ -246,6 +304,25 @@ public class Parser
         mappingEndpointDocumentation.setHidden(isHidden);
     }
 
+    /**
+     * Returns the apifest.re expression of each variable of the internal endpoint, as written in its tag.
+     * Unlike the varExpression of the mapping, which joins them with spaces, an expression may contain spaces.
+     */
+    static Map<String, String> parseVarExpressions(Map<String, String> tagMap) {
+        Map<String, String> varExpressions = new LinkedHashMap<String, String>();
+        String internalEndpoint = tagMap.get(APIFEST_INTERNAL);
+        if (internalEndpoint != null) {
+            Matcher m = VAR_PATTERN.matcher(internalEndpoint);
+            while (m.find()) {
+                String varExpression = tagMap.get(APIFEST_RE + m.group(2));
+                if (varExpression != null) {
+                    varExpressions.put(m.group(2), varExpression);
+                }
+            }
+        }
+        return varExpressions;
+    }
+
     static void parseInternalEndpointTag(Map<String, String> tagMap, MappingEndpoint mappingEndpoint, MappingEndpointDocumentation mappingEndpointDocumentation, String applicationPath) {
         String internalEndpoint = tagMap.get(APIFEST_INTERNAL);
         if (internalEndpoint != null) {
@@ -278,24 +355,24 @@ public class Parser
 
     static void parseRequestParams(Map<String, String> tagMap,
             MappingEndpointDocumentation mappingEndpointDocumentation)
+    {
+        parseRequestParams(tagMap, TagDispatcher.dispatch(tagMap), mappingEndpointDocumentation);
+    }
+
+    static void parseRequestParams(Map<String, String> tagMap, TagDispatcher tags,
+            MappingEndpointDocumentation mappingEndpointDocumentation)
     {
         String parametersDescription = tagMap.get(APIFEST_PARAMS_DESCRIPTION);
         mappingEndpointDocumentation.setParamsDescription(parametersDescription);
         List<RequestParamDocumentation> paramsList = new ArrayList<RequestParamDocumentation>();
-        for (Map.Entry<String, String> entry : tagMap.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            Matcher m = PARAM_PATTERN.matcher(key);
-            if (!m.matches()){
-                continue;
-            }
-            String name = m.group(1);
+        for (TagDispatcher.Tags param : tags.getRequestParams()) {
             RequestParamDocumentation paramDocumentation = new RequestParamDocumentation();
-            paramDocumentation.setName(tagMap.getOrDefault(REQUEST_PARAMS_PREFIX + name + ".name", name));
-            paramDocumentation.setDescription(value);
-            paramDocumentation.setType(tagMap.get(REQUEST_PARAMS_PREFIX + name + ".type"));
-            paramDocumentation.setRequired(!tagMap.containsKey(REQUEST_PARAMS_PREFIX + name + ".optional"));
-            paramDocumentation.setExampleValue(tagMap.get(REQUEST_PARAMS_PREFIX + name + ".exampleValue"));
+            String nameOverride = param.getNameOverride();
+            paramDocumentation.setName(nameOverride != null ? nameOverride : param.getName());
+            paramDocumentation.setDescription(param.getValue());
+            paramDocumentation.setType(param.getType());
+            paramDocumentation.setRequired(!param.isOptional());
+            paramDocumentation.setExampleValue(param.getExampleValue());
             paramsList.add(paramDocumentation);
         }
 
@@ -304,23 +381,23 @@ public class Parser
 
     static void parseResultParams(Map<String, String> tagMap,
             MappingEndpointDocumentation mappingEndpointDocumentation)
+    {
+        parseResultParams(tagMap, TagDispatcher.dispatch(tagMap), mappingEndpointDocumentation);
+    }
+
+    static void parseResultParams(Map<String, String> tagMap, TagDispatcher tags,
+            MappingEndpointDocumentation mappingEndpointDocumentation)
     {
         String parametersDescription = tagMap.get(APIFEST_RESULT_PARAMS_DESCRIPTION);
         mappingEndpointDocumentation.setResultsDescription(parametersDescription);
         List<ResultParamDocumentation> paramsList = new ArrayList<ResultParamDocumentation>();
-        for (Map.Entry<String, String> entry : tagMap.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            Matcher m = RESULT_PARAM_PATTERN.matcher(key);
-            if (!m.matches()){
-                continue;
-            }
-            String name = m.group(1);
+        for (TagDispatcher.Tags param : tags.getResultParams()) {
             ResultParamDocumentation paramDocumentation = new ResultParamDocumentation();
-            paramDocumentation.setName(tagMap.getOrDefault(RESULT_PARAMS_PREFIX + name + ".name", name));
-            paramDocumentation.setDescription(value);
-            paramDocumentation.setType(tagMap.get(RESULT_PARAMS_PREFIX + name + ".type"));
-            paramDocumentation.setRequired(!tagMap.containsKey(RESULT_PARAMS_PREFIX + name + ".optional"));
+            String nameOverride = param.getNameOverride();
+            paramDocumentation.setName(nameOverride != null ? nameOverride : param.getName());
+            paramDocumentation.setDescription(param.getValue());
+            paramDocumentation.setType(param.getType());
+            paramDocumentation.setRequired(!param.isOptional());
             paramsList.add(paramDocumentation);
         }
         mappingEndpointDocumentation.setResultParamsDocumentation(paramsList);
@@ -328,24 +405,23 @@ public class Parser
 
     static void parseExceptions(final Map<String, String> tagMap,
             MappingEndpointDocumentation mappingEndpointDocumentation)
+    {
+        parseExceptions(TagDispatcher.dispatch(tagMap), mappingEndpointDocumentation);
+    }
+
+    static void parseExceptions(TagDispatcher tags, MappingEndpointDocumentation mappingEndpointDocumentation)
     {
         final List<ExceptionDocumentation> exceptionsList = new ArrayList<ExceptionDocumentation>();
-        for (Map.Entry<String, String> entry : tagMap.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            Matcher m = EXCEPTION_PATTERN.matcher(key);
-            if (!m.matches()){
-                continue;
-            }
-            String name = m.group(1);
+        for (TagDispatcher.Tags exceptionTags : tags.getExceptions()) {
+            String name = exceptionTags.getName();
             ExceptionDocumentation exception = new ExceptionDocumentation();
             exception.setName(name);
-            exception.setCondition(value);
-            exception.setDescription(tagMap.get("apifest.docs.exceptions." + name + ".description"));
+            exception.setCondition(exceptionTags.getValue());
+            exception.setDescription(exceptionTags.getDescription());
             try {
-                exception.setCode(Integer.parseInt(tagMap.get("apifest.docs.exceptions." + name + ".code")));
+                exception.setCode(Integer.parseInt(exceptionTags.getCode()));
             } catch (NumberFormatException nfe) {
-                System.out.println("Invalid code given for exception " + name + ":" + tagMap.get("apifest.docs.exceptions." + name + ".code"));
+                System.out.println("Invalid code given for exception " + name + ":" + exceptionTags.getCode());
             }
             exceptionsList.add(exception);
         }
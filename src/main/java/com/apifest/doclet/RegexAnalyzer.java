@@ -0,0 +1,889 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Checks the regular expressions of path variables ({@code @apifest.re.*} tags) at build time: the expression
+ * must compile, and it is flagged when backtracking can make a failing match super-linear in the length of
+ * the path segment. Two shapes are detected:
+ * <ul>
+ * <li>an unbounded quantifier applied to a sub-expression that can match the same input in more than one way,
+ * because an iteration may consist of an unbounded quantifier alone, e.g. {@code (\d+)+} or {@code (\d+-?)+},
+ * or because two branches of an alternation match the same character, e.g. {@code (\d|\w)*}; the number of
+ * ways to match is exponential</li>
+ * <li>consecutive unbounded quantifiers where the next one can start with a character of the previous one,
+ * e.g. {@code \w+\d+} but not {@code \d+(-\d+)*}; each of them adds a degree to the polynomial number of ways
+ * to split the input</li>
+ * <li>a bounded quantifier, e.g. {@code {k}} or {@code {k,m}}, applied to a sub-expression of variable length
+ * whose quantifier can also match the rest of an iteration, e.g. {@code (.*a){12}} or {@code (a?){30}}; each
+ * iteration counts as one more consecutive quantifier</li>
+ * </ul>
+ * Only provable cases are reported as exponential: {@code (a+b)+} or {@code (a|ab)*} are linear since each
+ * iteration can be matched in one way only. Possessive quantifiers and atomic groups do not backtrack and are
+ * not flagged. Character sets are approximated with the printable ASCII characters, which are the ones that
+ * matter in URL paths. Expressions with a construct the analyzer does not understand, or with a bounded
+ * repetition it cannot prove linear, e.g. {@code (a+b*){3}}, are {@link Complexity#UNKNOWN}.
+ */
+public final class RegexAnalyzer {
+    private static final int FIRST_CHAR = 0x20;
+    private static final int LAST_CHAR = 0x7E;
+    private static final int UNBOUNDED = -1;
+    private static final ConcurrentHashMap<String, BitSet> ATOM_CHARS = new ConcurrentHashMap<>();
+
+    public enum Complexity {
+        LINEAR, POLYNOMIAL, EXPONENTIAL, UNKNOWN
+    }
+
+    /**
+     * The outcome of the analysis of one expression.
+     */
+    public static final class Result {
+        private final String error;
+        private final Complexity complexity;
+        private final int degree;
+        private final String reason;
+
+        private Result(String error, Complexity complexity, int degree, String reason) {
+            this.error = error;
+            this.complexity = complexity;
+            this.degree = degree;
+            this.reason = reason;
+        }
+
+        public boolean isValid() {
+            return error == null;
+        }
+
+        /**
+         * The syntax error of an invalid expression.
+         */
+        public String getError() {
+            return error;
+        }
+
+        public Complexity getComplexity() {
+            return complexity;
+        }
+
+        /**
+         * Whether the expression is prone to catastrophic backtracking.
+         */
+        public boolean isRisky() {
+            return complexity == Complexity.POLYNOMIAL || complexity == Complexity.EXPONENTIAL;
+        }
+
+        /**
+         * Whether the expression was analyzed at all; false if it uses a construct the analyzer does not understand.
+         */
+        public boolean isKnown() {
+            return complexity != Complexity.UNKNOWN;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * The estimated number of steps of a failing match against a segment of n characters.
+         */
+        public String getEstimatedCost() {
+            switch (complexity) {
+                case EXPONENTIAL:
+                    return "O(2^n)";
+                case POLYNOMIAL:
+                    return "O(n^" + degree + ")";
+                case UNKNOWN:
+                    return "unknown";
+                default:
+                    return "O(n)";
+            }
+        }
+    }
+
+    private RegexAnalyzer() {
+    }
+
+    public static Result analyze(String expression) {
+        try {
+            Pattern.compile(expression);
+        } catch (PatternSyntaxException e) {
+            return new Result(e.getDescription() + " near index " + e.getIndex(), null, 0, null);
+        }
+        Analysis analysis = new Analysis();
+        try {
+            new ExpressionParser(expression).parse().analyze(analysis, false);
+        } catch (RuntimeException e) {
+            // a construct the parser does not understand, the expression itself compiles
+            return new Result(null, Complexity.UNKNOWN, 0, "unsupported construct, " + e.getMessage());
+        }
+        return new Result(null, analysis.complexity, analysis.degree, analysis.reason);
+    }
+
+    private static final class Analysis {
+        private Complexity complexity = Complexity.LINEAR;
+        private int degree = 1;
+        private String reason;
+
+        void exponential(String why) {
+            if (complexity != Complexity.EXPONENTIAL) {
+                complexity = Complexity.EXPONENTIAL;
+                reason = why;
+            }
+        }
+
+        void unknown(String why) {
+            if (complexity == Complexity.LINEAR) {
+                complexity = Complexity.UNKNOWN;
+                reason = why;
+            }
+        }
+
+        void polynomial(int chainLength, String why) {
+            if (complexity == Complexity.EXPONENTIAL || chainLength <= degree) {
+                return;
+            }
+            complexity = Complexity.POLYNOMIAL;
+            degree = chainLength;
+            reason = why;
+        }
+    }
+
+    private abstract static class Node {
+        /**
+         * The characters that can be matched anywhere in this node.
+         */
+        abstract BitSet chars();
+
+        /**
+         * The characters that can be matched first by this node.
+         */
+        abstract BitSet first();
+
+        abstract boolean nullable();
+
+        /**
+         * Whether the node always matches the empty input; unlike {@link #nullable()} assertions, which may fail,
+         * do not count.
+         */
+        abstract boolean optional();
+
+        /**
+         * The characters that the node can match as a whole input of one character.
+         */
+        abstract BitSet singleChars();
+
+        /**
+         * Whether the node can match a repetition of some input in more than one way when it is repeated itself,
+         * i.e. it can consist of a backtracking unbounded quantifier alone or of two branches matching the same
+         * character.
+         */
+        abstract boolean ambiguousWhenRepeated();
+
+        /**
+         * Whether backtracking can make the node match inputs of different lengths, i.e. it has a quantifier whose
+         * number of iterations may vary.
+         */
+        abstract boolean variableLength();
+
+        abstract void analyze(Analysis analysis, boolean atomic);
+    }
+
+    private static final class Atom extends Node {
+        private final String text;
+        private final boolean zeroWidth;
+
+        Atom(String text, boolean zeroWidth) {
+            this.text = text;
+            this.zeroWidth = zeroWidth;
+        }
+
+        @Override
+        BitSet chars() {
+            if (zeroWidth) {
+                return new BitSet();
+            }
+            return ATOM_CHARS.computeIfAbsent(text, t -> {
+                BitSet chars = new BitSet();
+                Pattern atom = Pattern.compile(t);
+                for (int c = FIRST_CHAR; c <= LAST_CHAR; c++) {
+                    if (atom.matcher(String.valueOf((char) c)).matches()) {
+                        chars.set(c);
+                    }
+                }
+                return chars;
+            });
+        }
+
+        @Override
+        BitSet first() {
+            return chars();
+        }
+
+        @Override
+        boolean nullable() {
+            return zeroWidth;
+        }
+
+        @Override
+        boolean optional() {
+            // inline flags, e.g. (?i)
+            return zeroWidth && text.isEmpty();
+        }
+
+        @Override
+        BitSet singleChars() {
+            return chars();
+        }
+
+        @Override
+        boolean ambiguousWhenRepeated() {
+            return false;
+        }
+
+        @Override
+        boolean variableLength() {
+            return false;
+        }
+
+        @Override
+        void analyze(Analysis analysis, boolean atomic) {
+        }
+    }
+
+    private static final class Group extends Node {
+        private final Node inner;
+        private final boolean atomic;
+        private final boolean lookaround;
+
+        Group(Node inner, boolean atomic, boolean lookaround) {
+            this.inner = inner;
+            this.atomic = atomic;
+            this.lookaround = lookaround;
+        }
+
+        @Override
+        BitSet chars() {
+            return lookaround ? new BitSet() : inner.chars();
+        }
+
+        @Override
+        BitSet first() {
+            return lookaround ? new BitSet() : inner.first();
+        }
+
+        @Override
+        boolean nullable() {
+            return lookaround || inner.nullable();
+        }
+
+        @Override
+        boolean optional() {
+            return !lookaround && inner.optional();
+        }
+
+        @Override
+        BitSet singleChars() {
+            return lookaround ? new BitSet() : inner.singleChars();
+        }
+
+        @Override
+        boolean ambiguousWhenRepeated() {
+            return !atomic && !lookaround && inner.ambiguousWhenRepeated();
+        }
+
+        @Override
+        boolean variableLength() {
+            return !atomic && !lookaround && inner.variableLength();
+        }
+
+        @Override
+        void analyze(Analysis analysis, boolean insideAtomic) {
+            inner.analyze(analysis, insideAtomic || atomic);
+        }
+    }
+
+    private static final class Quantified extends Node {
+        private final Node body;
+        private final int min;
+        private final int max;
+        private final boolean possessive;
+
+        Quantified(Node body, int min, int max, boolean possessive) {
+            this.body = body;
+            this.min = min;
+            this.max = max;
+            this.possessive = possessive;
+        }
+
+        boolean isUnbounded() {
+            return max == UNBOUNDED && !possessive;
+        }
+
+        @Override
+        BitSet chars() {
+            return body.chars();
+        }
+
+        @Override
+        BitSet first() {
+            return body.first();
+        }
+
+        @Override
+        boolean nullable() {
+            return min == 0 || body.nullable();
+        }
+
+        @Override
+        boolean optional() {
+            return min == 0 || body.optional();
+        }
+
+        @Override
+        BitSet singleChars() {
+            return min <= 1 && max != 0 ? body.singleChars() : new BitSet();
+        }
+
+        @Override
+        boolean ambiguousWhenRepeated() {
+            if (possessive) {
+                return false;
+            }
+            // c^n splits into iterations of this quantifier in more than one way, also with e.g. {1,3}
+            boolean variableCount = max == UNBOUNDED || max >= 2 && max > min;
+            return variableCount && !body.chars().isEmpty() || body.ambiguousWhenRepeated();
+        }
+
+        @Override
+        boolean variableLength() {
+            return !possessive && ((max == UNBOUNDED || max > min) && !body.chars().isEmpty() || body.variableLength());
+        }
+
+        @Override
+        void analyze(Analysis analysis, boolean atomic) {
+            body.analyze(analysis, atomic);
+            if (atomic || possessive) {
+                return;
+            }
+            if (!isUnbounded()) {
+                if (max >= 2 && body.variableLength()) {
+                    analyzeBoundedRepetition(analysis);
+                }
+                return;
+            }
+            if (!body.ambiguousWhenRepeated()) {
+                return;
+            }
+            Node inner = body;
+            while (inner instanceof Group group && !group.atomic && !group.lookaround) {
+                inner = group.inner;
+            }
+            if (inner instanceof Alternation alternation && alternation.hasOverlappingBranches()) {
+                analysis.exponential("quantified alternation with overlapping branches");
+            } else {
+                analysis.exponential("nested quantifiers");
+            }
+        }
+
+        /**
+         * The iterations of a bounded quantifier are consecutive copies of the body: a quantifier of the body
+         * that can match all the characters of the body chains with itself in the next iteration, one that is
+         * followed by a character it cannot match is separated from it.
+         */
+        private void analyzeBoundedRepetition(Analysis analysis) {
+            List<Node> items = unwrap(body) instanceof Sequence sequence ? sequence.items : List.of(body);
+            BitSet bodyChars = body.chars();
+            for (int i = 0; i < items.size(); i++) {
+                Node item = unwrap(items.get(i));
+                if (!item.variableLength()) {
+                    continue;
+                }
+                if (!(item instanceof Quantified quantified) || quantified.body.variableLength()) {
+                    analysis.unknown("bounded repetition of nested quantifiers");
+                    return;
+                }
+                BitSet uncovered = (BitSet) bodyChars.clone();
+                uncovered.andNot(quantified.chars());
+                if (uncovered.isEmpty()) {
+                    analysis.polynomial(max, "bounded repetition of a quantifier over overlapping characters");
+                    return;
+                }
+                // the item after the last one is the first item of the next iteration
+                Node next = items.get((i + 1) % items.size());
+                if (next.nullable() || next.first().intersects(quantified.chars())) {
+                    analysis.unknown("bounded repetition of a quantifier over overlapping characters");
+                    return;
+                }
+            }
+        }
+
+        private static Node unwrap(Node node) {
+            while (true) {
+                if (node instanceof Group group && !group.atomic && !group.lookaround) {
+                    node = group.inner;
+                } else if (node instanceof Sequence sequence && sequence.items.size() == 1) {
+                    node = sequence.items.get(0);
+                } else {
+                    return node;
+                }
+            }
+        }
+    }
+
+    private static final class Sequence extends Node {
+        private final List<Node> items;
+
+        Sequence(List<Node> items) {
+            this.items = items;
+        }
+
+        @Override
+        BitSet chars() {
+            BitSet chars = new BitSet();
+            for (Node item : items) {
+                chars.or(item.chars());
+            }
+            return chars;
+        }
+
+        @Override
+        BitSet first() {
+            BitSet first = new BitSet();
+            for (Node item : items) {
+                first.or(item.first());
+                if (!item.nullable()) {
+                    break;
+                }
+            }
+            return first;
+        }
+
+        @Override
+        boolean nullable() {
+            for (Node item : items) {
+                if (!item.nullable()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean optional() {
+            for (Node item : items) {
+                if (!item.optional()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        BitSet singleChars() {
+            BitSet singleChars = new BitSet();
+            Node required = null;
+            for (Node item : items) {
+                if (!item.optional()) {
+                    if (required != null) {
+                        // at least two characters
+                        return new BitSet();
+                    }
+                    required = item;
+                }
+            }
+            if (required != null) {
+                return required.singleChars();
+            }
+            for (Node item : items) {
+                singleChars.or(item.singleChars());
+            }
+            return singleChars;
+        }
+
+        @Override
+        boolean ambiguousWhenRepeated() {
+            // one item that is ambiguous alone, all the others may be skipped
+            for (Node item : items) {
+                if (item.ambiguousWhenRepeated()) {
+                    for (Node other : items) {
+                        if (other != item && !other.optional()) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean variableLength() {
+            for (Node item : items) {
+                if (item.variableLength()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void analyze(Analysis analysis, boolean atomic) {
+            Quantified previous = null;
+            int chainLength = 0;
+            for (Node item : items) {
+                item.analyze(analysis, atomic);
+                if (!atomic && item instanceof Quantified quantified && quantified.isUnbounded()) {
+                    // the input can be split between the two only if the next one starts with a character of the previous
+                    if (previous != null && previous.chars().intersects(quantified.first())) {
+                        chainLength++;
+                    } else {
+                        chainLength = 1;
+                    }
+                    previous = quantified;
+                    analysis.polynomial(chainLength, "consecutive quantifiers over overlapping characters");
+                } else if (!item.nullable()) {
+                    previous = null;
+                    chainLength = 0;
+                }
+            }
+        }
+    }
+
+    private static final class Alternation extends Node {
+        private final List<Node> branches;
+
+        Alternation(List<Node> branches) {
+            this.branches = branches;
+        }
+
+        /**
+         * Whether two branches match the same character, so that a repetition of it matches in two ways.
+         */
+        boolean hasOverlappingBranches() {
+            for (int i = 0; i < branches.size(); i++) {
+                for (int j = i + 1; j < branches.size(); j++) {
+                    if (branches.get(i).singleChars().intersects(branches.get(j).singleChars())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        BitSet chars() {
+            BitSet chars = new BitSet();
+            for (Node branch : branches) {
+                chars.or(branch.chars());
+            }
+            return chars;
+        }
+
+        @Override
+        BitSet first() {
+            BitSet first = new BitSet();
+            for (Node branch : branches) {
+                first.or(branch.first());
+            }
+            return first;
+        }
+
+        @Override
+        boolean nullable() {
+            for (Node branch : branches) {
+                if (branch.nullable()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean optional() {
+            for (Node branch : branches) {
+                if (branch.optional()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        BitSet singleChars() {
+            BitSet singleChars = new BitSet();
+            for (Node branch : branches) {
+                singleChars.or(branch.singleChars());
+            }
+            return singleChars;
+        }
+
+        @Override
+        boolean ambiguousWhenRepeated() {
+            if (hasOverlappingBranches()) {
+                return true;
+            }
+            for (Node branch : branches) {
+                if (branch.ambiguousWhenRepeated()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean variableLength() {
+            for (Node branch : branches) {
+                if (branch.variableLength()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void analyze(Analysis analysis, boolean atomic) {
+            for (Node branch : branches) {
+                branch.analyze(analysis, atomic);
+            }
+        }
+    }
+
+    /**
+     * Recursive descent parser of the java.util.regex syntax into the nodes above. Only the structure matters:
+     * escapes and character classes become atoms whose characters are computed with {@link Pattern} itself.
+     */
+    private static final class ExpressionParser {
+        private final String expression;
+        private int position;
+
+        ExpressionParser(String expression) {
+            this.expression = expression;
+        }
+
+        Node parse() {
+            Node node = parseAlternation();
+            if (position != expression.length()) {
+                throw new IllegalStateException("unexpected " + expression.charAt(position));
+            }
+            return node;
+        }
+
+        private Node parseAlternation() {
+            List<Node> branches = new ArrayList<>();
+            branches.add(parseSequence());
+            while (position < expression.length() && expression.charAt(position) == '|') {
+                position++;
+                branches.add(parseSequence());
+            }
+            return branches.size() == 1 ? branches.get(0) : new Alternation(branches);
+        }
+
+        private Node parseSequence() {
+            List<Node> items = new ArrayList<>();
+            while (position < expression.length()) {
+                char c = expression.charAt(position);
+                if (c == '|' || c == ')') {
+                    break;
+                }
+                items.add(parseQuantified());
+            }
+            return new Sequence(items);
+        }
+
+        private Node parseQuantified() {
+            Node node = parseAtom();
+            while (position < expression.length()) {
+                char c = expression.charAt(position);
+                int min;
+                int max;
+                if (c == '*') {
+                    min = 0;
+                    max = UNBOUNDED;
+                    position++;
+                } else if (c == '+') {
+                    min = 1;
+                    max = UNBOUNDED;
+                    position++;
+                } else if (c == '?') {
+                    min = 0;
+                    max = 1;
+                    position++;
+                } else if (c == '{') {
+                    int end = expression.indexOf('}', position);
+                    String[] bounds = expression.substring(position + 1, end).split(",", -1);
+                    min = Integer.parseInt(bounds[0].trim());
+                    if (bounds.length == 1) {
+                        max = min;
+                    } else {
+                        max = bounds[1].trim().isEmpty() ? UNBOUNDED : Integer.parseInt(bounds[1].trim());
+                    }
+                    position = end + 1;
+                } else {
+                    break;
+                }
+                boolean possessive = false;
+                if (position < expression.length()) {
+                    char mode = expression.charAt(position);
+                    if (mode == '?') {
+                        position++;
+                    } else if (mode == '+') {
+                        possessive = true;
+                        position++;
+                    }
+                }
+                node = new Quantified(node, min, max, possessive);
+            }
+            return node;
+        }
+
+        private Node parseAtom() {
+            char c = expression.charAt(position);
+            switch (c) {
+                case '(':
+                    return parseGroup();
+                case '[':
+                    return atom(classEnd(position + 1), false);
+                case '\\':
+                    return parseEscape();
+                case '^':
+                case '$':
+                    return atom(position + 1, true);
+                default:
+                    return atom(position + Character.charCount(expression.codePointAt(position)), false);
+            }
+        }
+
+        private Node parseGroup() {
+            position++;
+            boolean atomic = false;
+            boolean lookaround = false;
+            if (expression.startsWith("?", position)) {
+                if (expression.startsWith("?:", position)) {
+                    position += 2;
+                } else if (expression.startsWith("?>", position)) {
+                    atomic = true;
+                    position += 2;
+                } else if (expression.startsWith("?=", position) || expression.startsWith("?!", position)) {
+                    lookaround = true;
+                    position += 2;
+                } else if (expression.startsWith("?<=", position) || expression.startsWith("?<!", position)) {
+                    lookaround = true;
+                    position += 3;
+                } else if (expression.startsWith("?<", position)) {
+                    position = expression.indexOf('>', position) + 1;
+                } else {
+                    // inline flags, (?i) or (?i:...)
+                    int end = position + 1;
+                    while (expression.charAt(end) != ')' && expression.charAt(end) != ':') {
+                        end++;
+                    }
+                    position = end + 1;
+                    if (expression.charAt(end) == ')') {
+                        return new Atom("", true);
+                    }
+                }
+            }
+            Node inner = parseAlternation();
+            if (position >= expression.length() || expression.charAt(position) != ')') {
+                throw new IllegalStateException("unclosed group");
+            }
+            position++;
+            return new Group(inner, atomic, lookaround);
+        }
+
+        private Node parseEscape() {
+            char escaped = expression.charAt(position + 1);
+            switch (escaped) {
+                case 'p':
+                case 'P':
+                case 'x':
+                    if (expression.charAt(position + 2) == '{') {
+                        return atom(expression.indexOf('}', position) + 1, false);
+                    }
+                    return atom(position + (escaped == 'x' ? 4 : 3), false);
+                case 'u':
+                    return atom(position + 6, false);
+                case 'c':
+                    return atom(position + 3, false);
+                case '0':
+                    int octalEnd = position + 2;
+                    while (octalEnd < expression.length() && octalEnd < position + 5
+                            && expression.charAt(octalEnd) >= '0' && expression.charAt(octalEnd) <= '7') {
+                        octalEnd++;
+                    }
+                    return atom(octalEnd, false);
+                case 'Q':
+                    int quoteEnd = expression.indexOf("\\E", position);
+                    return atom(quoteEnd < 0 ? expression.length() : quoteEnd + 2, false);
+                case 'b':
+                case 'B':
+                case 'A':
+                case 'G':
+                case 'z':
+                case 'Z':
+                    return atom(position + 2, true);
+                case 'k':
+                    // a back reference may match anything its group matched
+                    position = expression.indexOf('>', position) + 1;
+                    return new Atom(".", false);
+                default:
+                    if (escaped >= '1' && escaped <= '9') {
+                        position += 2;
+                        while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                            position++;
+                        }
+                        return new Atom(".", false);
+                    }
+                    return atom(position + 2, false);
+            }
+        }
+
+        private int classEnd(int start) {
+            int i = start;
+            if (i < expression.length() && expression.charAt(i) == '^') {
+                i++;
+            }
+            if (i < expression.length() && expression.charAt(i) == ']') {
+                i++;
+            }
+            for (; i < expression.length(); i++) {
+                char c = expression.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == '[') {
+                    i = classEnd(i + 1) - 1;
+                } else if (c == ']') {
+                    return i + 1;
+                }
+            }
+            throw new IllegalStateException("unclosed character class");
+        }
+
+        private Node atom(int end, boolean zeroWidth) {
+            Node atom = new Atom(expression.substring(position, end), zeroWidth);
+            position = end;
+            return atom;
+        }
+    }
+}
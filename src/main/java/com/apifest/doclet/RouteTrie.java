@@ -0,0 +1,268 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.apifest.api.MappingEndpoint;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Routing index of the mapping: one segment trie per HTTP method, keyed by the literal path segments of the
+ * external endpoints. Segments with variables, e.g. {@code {user_id}}, are matched with the {@code varExpression}
+ * of their variable and only tried when no literal segment leads to a route, so matching a request costs
+ * in proportion to the depth of its path and not to the number of endpoints.
+ * <p>
+ * The routes are the visible endpoints in the order of the mapping file, an endpoint with the same method and path
+ * as a previous one is left out. The trie is written as JSON
+ * with {@link #write(OutputStream)} and loaded back with {@link #read(InputStream)}.
+ */
+public class RouteTrie {
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\{(\\w*-?_?\\w*)\\}");
+    // used for variables without a regular expression
+    private static final String ANY_SEGMENT = "[^/]+";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private String version;
+    private Map<String, Node> methods = new LinkedHashMap<>();
+    private List<Route> routes = new ArrayList<>();
+
+    private RouteTrie() {
+    }
+
+    /**
+     * Builds the trie of the visible endpoints.
+     */
+    public static RouteTrie build(String version, Iterable<ParsedEndpoint> parsedEndpoints) {
+        RouteTrie trie = new RouteTrie();
+        trie.version = version;
+        // the position in the mapping file, which has all the visible endpoints
+        int position = 0;
+        for (ParsedEndpoint parsed : parsedEndpoints) {
+            MappingEndpoint endpoint = parsed.getMappingEndpoint();
+            if (endpoint == null || endpoint.isHidden()) {
+                continue;
+            }
+            if (endpoint.getExternalEndpoint() != null && endpoint.getMethod() != null) {
+                trie.add(endpoint, parsed.getVarExpressions() != null ? parsed.getVarExpressions() : Map.of(), position);
+            }
+            position++;
+        }
+        return trie;
+    }
+
+    public static RouteTrie read(InputStream in) throws IOException {
+        RouteTrie trie = MAPPER.readValue(in, RouteTrie.class);
+        for (Node root : trie.methods.values()) {
+            root.compile();
+        }
+        return trie;
+    }
+
+    public void write(OutputStream out) throws IOException {
+        MAPPER.writeValue(out, this);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Returns the route of the request, or null if no endpoint matches. Literal segments take precedence
+     * over variables; when the same method and path are declared twice, the first endpoint wins.
+     */
+    public Route match(String method, String path) {
+        Node root = methods.get(method.toUpperCase(Locale.ROOT));
+        if (root == null) {
+            return null;
+        }
+        int route = root.match(segments(path), 0);
+        return route < 0 ? null : routes.get(route);
+    }
+
+    /**
+     * Adds the route of the endpoint; varExpressions are the expressions of its variables as written in the
+     * apifest.re tags, since the varExpression of the mapping joins them with spaces.
+     */
+    private void add(MappingEndpoint endpoint, Map<String, String> varExpressions, int position) {
+        Node node = methods.computeIfAbsent(endpoint.getMethod().toUpperCase(Locale.ROOT), m -> new Node());
+        for (String segment : segments(endpoint.getExternalEndpoint())) {
+            if (segment.indexOf('{') < 0) {
+                node = node.literals.computeIfAbsent(segment, s -> new Node());
+            } else {
+                node = node.variable(segmentPattern(segment, varExpressions));
+            }
+        }
+        if (node.route == null) {
+            node.route = routes.size();
+            routes.add(new Route(endpoint.getMethod(), endpoint.getExternalEndpoint(), position));
+        }
+    }
+
+    private static String segmentPattern(String segment, Map<String, String> varExpressions) {
+        StringBuilder pattern = new StringBuilder();
+        Matcher m = VAR_PATTERN.matcher(segment);
+        int literalStart = 0;
+        while (m.find()) {
+            if (m.start() > literalStart) {
+                pattern.append(Pattern.quote(segment.substring(literalStart, m.start())));
+            }
+            pattern.append("(?:").append(varExpressions.getOrDefault(m.group(1), ANY_SEGMENT)).append(')');
+            literalStart = m.end();
+        }
+        if (literalStart < segment.length()) {
+            pattern.append(Pattern.quote(segment.substring(literalStart)));
+        }
+        return pattern.toString();
+    }
+
+    private static String[] segments(String path) {
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    /**
+     * An endpoint of the mapping, identified by its method and external endpoint.
+     */
+    public static class Route {
+        private String method;
+        private String externalEndpoint;
+        private int index;
+
+        private Route() {
+        }
+
+        Route(String method, String externalEndpoint, int index) {
+            this.method = method;
+            this.externalEndpoint = externalEndpoint;
+            this.index = index;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getExternalEndpoint() {
+            return externalEndpoint;
+        }
+
+        /**
+         * The position of the endpoint among the endpoints of the mapping file, counting from 0; hidden endpoints
+         * are not in the mapping file.
+         */
+        public int getIndex() {
+            return index;
+        }
+    }
+
+    private static class Node {
+        private Map<String, Node> literals = new LinkedHashMap<>();
+        private List<VariableEdge> variables = new ArrayList<>();
+        // index of the route ending at this node, null if none
+        private Integer route;
+
+        Node variable(String pattern) {
+            for (VariableEdge edge : variables) {
+                if (edge.pattern.equals(pattern)) {
+                    return edge.node;
+                }
+            }
+            VariableEdge edge = new VariableEdge(pattern);
+            variables.add(edge);
+            return edge.node;
+        }
+
+        int match(String[] segments, int index) {
+            if (index == segments.length) {
+                return route == null ? -1 : route;
+            }
+            Node literal = literals.get(segments[index]);
+            if (literal != null) {
+                int matched = literal.match(segments, index + 1);
+                if (matched >= 0) {
+                    return matched;
+                }
+            }
+            for (VariableEdge edge : variables) {
+                if (edge.compiled.matcher(segments[index]).matches()) {
+                    int matched = edge.node.match(segments, index + 1);
+                    if (matched >= 0) {
+                        return matched;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        void compile() {
+            for (Node literal : literals.values()) {
+                literal.compile();
+            }
+            for (VariableEdge edge : variables) {
+                edge.compiled = Pattern.compile(edge.pattern);
+                edge.node.compile();
+            }
+        }
+    }
+
+    private static class VariableEdge {
+        private String pattern;
+        private Node node = new Node();
+        private transient Pattern compiled;
+
+        private VariableEdge() {
+        }
+
+        VariableEdge(String pattern) {
+            this.pattern = pattern;
+            this.compiled = Pattern.compile(pattern);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import com.apifest.api.MappingEndpoint;
+
+/**
+ * Contains the criteria by which the mapping can be split into shards.
+ */
+public enum ShardBy {
+    GROUP("group"), BACKEND_HOST("backendHost"), SCOPE("scope");
+    private String value;
+
+    private ShardBy(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    public static ShardBy fromString(String value) {
+        ShardBy[] values = ShardBy.values();
+        for (ShardBy shardBy : values) {
+            if (shardBy.getValue().equalsIgnoreCase(value)) {
+                return shardBy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the shard of the endpoint, null when the endpoint has no value for the criterion.
+     */
+    String keyOf(ParsedEndpoint parsed, String defaultBackendHost) {
+        MappingEndpoint endpoint = parsed.getMappingEndpoint();
+        switch (this) {
+            case GROUP:
+                return parsed.getMappingEndpointDocumentation() == null ? null : parsed.getMappingEndpointDocumentation().getGroup();
+            case BACKEND_HOST:
+                return endpoint.getBackendHost() != null ? endpoint.getBackendHost() : defaultBackendHost;
+            default:
+                return endpoint.getScope();
+        }
+    }
+}
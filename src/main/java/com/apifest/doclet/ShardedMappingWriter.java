@@ -0,0 +1,258 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import com.apifest.api.MappingEndpoint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Splits the visible endpoints into shards and writes one mapping file per shard with {@link MappingWriter},
+ * next to the configured mapping file: {@code output_mapping_v1.xml} is split into
+ * {@code output_mapping_v1_<shard>.xml} files, listed in the {@code output_mapping_v1_index.json} index.
+ * Endpoints without a value for the criterion go to the {@value #DEFAULT_SHARD} shard. The backend of a shard
+ * is the backend of its endpoints when they all share one, e.g. with {@link ShardBy#BACKEND_HOST}, otherwise
+ * the default backend. Shard files listed in the previous index and not written again are deleted. The
+ * shards are always streamed with {@link MappingWriter}; a shard whose file would be the delta file of the
+ * mapping, {@code output_mapping_v1_delta.xml}, is written to {@code output_mapping_v1_delta-2.xml} instead.
+ */
+public class ShardedMappingWriter {
+    static final String DEFAULT_SHARD = "default";
+    static final String INDEX_SUFFIX = "_index.json";
+    private static final String XML_EXTENSION = ".xml";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path mappingFile;
+    private final String version;
+    private final String backendHost;
+    private final int backendPort;
+    private final ShardBy shardBy;
+    private final OutputFiles outputFiles;
+
+    public ShardedMappingWriter(Path mappingFile, String version, String backendHost, int backendPort, ShardBy shardBy) {
+        this(mappingFile, version, backendHost, backendPort, shardBy, new OutputFiles());
+    }
+
+    public ShardedMappingWriter(Path mappingFile, String version, String backendHost, int backendPort, ShardBy shardBy,
+            OutputFiles outputFiles) {
+        this.mappingFile = mappingFile;
+        this.version = version;
+        this.backendHost = backendHost;
+        this.backendPort = backendPort;
+        this.shardBy = shardBy;
+        this.outputFiles = outputFiles;
+    }
+
+    /**
+     * Writes the shards, with up to parallelism shards written at the same time, and then the index.
+     *
+     * @return the written files, the index last
+     */
+    public List<Path> write(Iterable<ParsedEndpoint> parsedEndpoints, int parallelism) throws IOException {
+        Path index = getIndexFile();
+        // read before the index is overwritten; the files of an opener are not next to the names
+        Set<String> previousFileNames = outputFiles.hasOpener() ? new HashSet<>() : readShardFileNames(index);
+        Map<String, List<ParsedEndpoint>> shards = split(parsedEndpoints);
+        List<Shard> files = new ArrayList<>();
+        Set<String> fileNames = new HashSet<>();
+        // reserved for the delta from the previous mapping
+        fileNames.add(deltaFileName());
+        for (Map.Entry<String, List<ParsedEndpoint>> shard : shards.entrySet()) {
+            files.add(new Shard(shard.getKey(), shardFile(shard.getKey(), fileNames), shard.getValue()));
+        }
+        if (parallelism > 1 && files.size() > 1) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.submit(() -> files.parallelStream().forEach(ShardedMappingWriter.this::writeShard)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            try {
+                files.forEach(this::writeShard);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        List<Path> written = new ArrayList<>();
+        for (Shard shard : files) {
+            written.add(shard.file);
+        }
+        writeIndex(index, files);
+        written.add(index);
+        // shards of a run with another criterion or other keys would otherwise be loaded together with the new ones
+        previousFileNames.removeAll(fileNames);
+        for (String fileName : previousFileNames) {
+            outputFiles.delete(sibling(fileName));
+        }
+        return written;
+    }
+
+    /**
+     * Returns the names of the shard files listed in the index, none when there is no readable index.
+     */
+    private Set<String> readShardFileNames(Path index) {
+        Set<String> fileNames = new HashSet<>();
+        if (!Files.isRegularFile(index)) {
+            return fileNames;
+        }
+        try {
+            for (JsonNode shard : MAPPER.readTree(index.toFile()).path("shards")) {
+                String fileName = shard.path("file").asText();
+                // only the shard files next to the index
+                if (fileName.endsWith(XML_EXTENSION) && fileName.startsWith(baseName() + "_") && !fileName.equals(deltaFileName())
+                        && Path.of(fileName).getFileName().toString().equals(fileName)) {
+                    fileNames.add(fileName);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("WARNING: cannot read the previous shard index " + index + ", " + e.getMessage());
+        }
+        return fileNames;
+    }
+
+    public Path getIndexFile() {
+        return sibling(baseName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * Groups the visible endpoints by shard, shards and endpoints keep the order of the endpoints.
+     */
+    Map<String, List<ParsedEndpoint>> split(Iterable<ParsedEndpoint> parsedEndpoints) {
+        Map<String, List<ParsedEndpoint>> shards = new LinkedHashMap<>();
+        for (ParsedEndpoint parsed : parsedEndpoints) {
+            MappingEndpoint endpoint = parsed.getMappingEndpoint();
+            if (endpoint == null || endpoint.isHidden()) {
+                continue;
+            }
+            String key = shardBy.keyOf(parsed, backendHost);
+            if (key == null || key.trim().isEmpty()) {
+                key = DEFAULT_SHARD;
+            }
+            shards.computeIfAbsent(key, k -> new ArrayList<>()).add(parsed);
+        }
+        return shards;
+    }
+
+    private void writeShard(Shard shard) {
+        String shardBackendHost = backendHost;
+        int shardBackendPort = backendPort;
+        MappingEndpoint first = shard.endpoints.get(0).getMappingEndpoint();
+        if (shard.endpoints.stream().allMatch(parsed -> hasBackend(parsed.getMappingEndpoint(), first))) {
+            shardBackendHost = first.getBackendHost() != null ? first.getBackendHost() : backendHost;
+            shardBackendPort = first.getBackendPort() != null ? first.getBackendPort() : backendPort;
+        }
+        String host = shardBackendHost;
+        int port = shardBackendPort;
+        try {
+            outputFiles.write(shard.file, out -> {
+                try (MappingWriter writer = new MappingWriter(out, version, host, port)) {
+                    for (ParsedEndpoint parsed : shard.endpoints) {
+                        writer.write(parsed);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean hasBackend(MappingEndpoint endpoint, MappingEndpoint other) {
+        return Objects.equals(endpoint.getBackendHost(), other.getBackendHost())
+                && Objects.equals(endpoint.getBackendPort(), other.getBackendPort());
+    }
+
+    private void writeIndex(Path index, List<Shard> shards) throws IOException {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (Shard shard : shards) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("shard", shard.key);
+            entry.put("file", shard.file.getFileName().toString());
+            entry.put("endpoints", shard.endpoints.size());
+            entries.add(entry);
+        }
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("version", version);
+        content.put("shardBy", shardBy.getValue());
+        content.put("shards", entries);
+        outputFiles.write(index, out -> MAPPER.writeValue(out, content));
+    }
+
+    private Path shardFile(String key, Set<String> fileNames) {
+        String slug = key.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+        if (slug.isEmpty()) {
+            slug = DEFAULT_SHARD;
+        }
+        // different keys may have the same slug, e.g. "Users" and "users"
+        String fileName = baseName() + "_" + slug + XML_EXTENSION;
+        for (int i = 2; !fileNames.add(fileName); i++) {
+            fileName = baseName() + "_" + slug + "-" + i + XML_EXTENSION;
+        }
+        return sibling(fileName);
+    }
+
+    private String deltaFileName() {
+        return baseName() + MappingDelta.DELTA_SUFFIX;
+    }
+
+    private String baseName() {
+        String fileName = mappingFile.getFileName().toString();
+        return fileName.endsWith(XML_EXTENSION) ? fileName.substring(0, fileName.length() - XML_EXTENSION.length()) : fileName;
+    }
+
+    private Path sibling(String fileName) {
+        Path parent = mappingFile.toAbsolutePath().getParent();
+        return parent == null ? Path.of(fileName) : parent.resolve(fileName);
+    }
+
+    private static class Shard {
+        private final String key;
+        private final Path file;
+        private final List<ParsedEndpoint> endpoints;
+
+        Shard(String key, Path file, List<ParsedEndpoint> endpoints) {
+            this.key = key;
+            this.file = file;
+            this.endpoints = endpoints;
+        }
+    }
+}
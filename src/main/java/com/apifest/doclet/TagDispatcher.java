@@ -0,0 +1,178 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Classifies the request parameter, result parameter and exception tags of an endpoint in a single
+ * pass over the tag map. Tags are recognized by prefix and suffix, e.g.
+ * {@code apifest.docs.params.ids.type} is the type of the request parameter {@code ids}.
+ * Parameters and exceptions are listed in the iteration order of their own tag.
+ */
+class TagDispatcher {
+    private static final String DOCS_PREFIX = "apifest.docs.";
+    // first key after all the keys starting with DOCS_PREFIX, '/' follows '.'
+    private static final String DOCS_PREFIX_END = "apifest.docs/";
+    private static final String REQUEST_PARAMS_PREFIX = "apifest.docs.params.";
+    private static final String RESULT_PARAMS_PREFIX = "apifest.docs.results.";
+    private static final String EXCEPTIONS_PREFIX = "apifest.docs.exceptions.";
+
+    private static final String NAME_SUFFIX = "name";
+    private static final String TYPE_SUFFIX = "type";
+    private static final String OPTIONAL_SUFFIX = "optional";
+    private static final String EXAMPLE_VALUE_SUFFIX = "exampleValue";
+    private static final String DESCRIPTION_SUFFIX = "description";
+    private static final String CODE_SUFFIX = "code";
+    private static final String[] SUFFIXES = {NAME_SUFFIX, TYPE_SUFFIX, OPTIONAL_SUFFIX, EXAMPLE_VALUE_SUFFIX,
+            DESCRIPTION_SUFFIX, CODE_SUFFIX};
+
+    private final Group requestParams = new Group();
+    private final Group resultParams = new Group();
+    private final Group exceptions = new Group();
+
+    private TagDispatcher() {
+    }
+
+    static TagDispatcher dispatch(Map<String, String> tagMap) {
+        TagDispatcher dispatcher = new TagDispatcher();
+        Map<String, String> docsTags = tagMap;
+        if (tagMap instanceof SortedMap<String, String> sortedTagMap && sortedTagMap.comparator() == null) {
+            docsTags = sortedTagMap.subMap(DOCS_PREFIX, DOCS_PREFIX_END);
+        }
+        for (Map.Entry<String, String> entry : docsTags.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(DOCS_PREFIX)) {
+                continue;
+            }
+            if (key.startsWith(REQUEST_PARAMS_PREFIX)) {
+                dispatcher.requestParams.add(key, REQUEST_PARAMS_PREFIX.length(), entry.getValue());
+            } else if (key.startsWith(RESULT_PARAMS_PREFIX)) {
+                dispatcher.resultParams.add(key, RESULT_PARAMS_PREFIX.length(), entry.getValue());
+            } else if (key.startsWith(EXCEPTIONS_PREFIX)) {
+                dispatcher.exceptions.add(key, EXCEPTIONS_PREFIX.length(), entry.getValue());
+            }
+        }
+        return dispatcher;
+    }
+
+    List<Tags> getRequestParams() {
+        return requestParams.documented;
+    }
+
+    List<Tags> getResultParams() {
+        return resultParams.documented;
+    }
+
+    List<Tags> getExceptions() {
+        return exceptions.documented;
+    }
+
+    /**
+     * The tags of one parameter or exception, the value of the tag without suffix is its description
+     * (or condition, for exceptions).
+     */
+    static class Tags {
+        private final String name;
+        private String value;
+        private final Map<String, String> suffixes = new HashMap<>(4);
+
+        Tags(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        String getNameOverride() {
+            return suffixes.get(NAME_SUFFIX);
+        }
+
+        String getType() {
+            return suffixes.get(TYPE_SUFFIX);
+        }
+
+        boolean isOptional() {
+            return suffixes.containsKey(OPTIONAL_SUFFIX);
+        }
+
+        String getExampleValue() {
+            return suffixes.get(EXAMPLE_VALUE_SUFFIX);
+        }
+
+        String getDescription() {
+            return suffixes.get(DESCRIPTION_SUFFIX);
+        }
+
+        String getCode() {
+            return suffixes.get(CODE_SUFFIX);
+        }
+    }
+
+    private static class Group {
+        private final Map<String, Tags> byName = new HashMap<>();
+        private final List<Tags> documented = new ArrayList<>();
+
+        void add(String key, int nameStart, String value) {
+            int nameEnd = key.indexOf('.', nameStart);
+            int end = nameEnd < 0 ? key.length() : nameEnd;
+            if (end == nameStart || !isWordName(key, nameStart, end)) {
+                return;
+            }
+            String name = key.substring(nameStart, end);
+            Tags tags = byName.computeIfAbsent(name, Tags::new);
+            if (nameEnd < 0) {
+                tags.value = value;
+                documented.add(tags);
+            } else {
+                String suffix = suffixOf(key, nameEnd + 1);
+                if (suffix != null) {
+                    tags.suffixes.put(suffix, value);
+                }
+            }
+        }
+
+        private static String suffixOf(String key, int start) {
+            int length = key.length() - start;
+            for (String suffix : SUFFIXES) {
+                if (suffix.length() == length && key.startsWith(suffix, start)) {
+                    return suffix;
+                }
+            }
+            return null;
+        }
+
+        private static boolean isWordName(String key, int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = key.charAt(i);
+                if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
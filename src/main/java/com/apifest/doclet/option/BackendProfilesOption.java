@@ -0,0 +1,60 @@
+package com.apifest.doclet.option;
+
+import com.apifest.doclet.BackendProfile;
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class BackendProfilesOption implements Option {
+    private Map<String, BackendProfile> backendProfiles = new TreeMap<>();
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the properties file of the backend profiles; a mapping file is written per profile";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-backendProfiles", "--backend-profiles");
+    }
+
+    @Override
+    public String getParameters() {
+        return "filename";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        String filename = arguments.get(0);
+        if (filename == null || filename.isEmpty() || "null".equalsIgnoreCase(filename)) {
+            return true;
+        }
+        try {
+            backendProfiles = BackendProfile.load(Paths.get(filename));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read the backend profiles " + filename + ", " + e.getMessage());
+        }
+        if (backendProfiles.isEmpty()) {
+            throw new IllegalArgumentException("The backend profiles file " + filename + " is empty");
+        }
+        return true;
+    }
+
+    public Map<String, BackendProfile> getBackendProfiles() {
+        return backendProfiles;
+    }
+}
@@ -0,0 +1,44 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class CacheDirOption implements Option {
+    private String cacheDir;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the directory where parsed endpoints are cached between runs";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-cacheDir", "--cache-dir");
+    }
+
+    @Override
+    public String getParameters() {
+        return "directory";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        cacheDir = arguments.get(0);
+        return true;
+    }
+
+    public String getCacheDir() {
+        return cacheDir;
+    }
+}
@@ -0,0 +1,52 @@
+package com.apifest.doclet.option;
+
+import com.apifest.doclet.Compression;
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CompressionOption implements Option {
+    private Compression compression = Compression.NONE;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Compresses the mapping and documentation files. Available formats: "
+                + Stream.of(Compression.values()).map(Compression::getValue).collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-compression", "--compression");
+    }
+
+    @Override
+    public String getParameters() {
+        return "format";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        String value = arguments.get(0);
+        compression = Compression.fromString(value);
+        if (compression == null) {
+            throw new IllegalArgumentException("The compression " + value + " is invalid");
+        }
+        return true;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+}
@@ -0,0 +1,51 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IncludePackagesOption implements Option {
+    private List<String> packages = new ArrayList<>();
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the comma separated package globs of the resource interfaces, e.g. com.example.**.api";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-includePackages", "--include-packages");
+    }
+
+    @Override
+    public String getParameters() {
+        return "globs";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        packages = new ArrayList<>();
+        for (String glob : arguments.get(0).split(",")) {
+            glob = glob.trim();
+            if (!glob.isEmpty() && !"null".equalsIgnoreCase(glob)) {
+                packages.add(glob);
+            }
+        }
+        return true;
+    }
+
+    public List<String> getPackages() {
+        return packages;
+    }
+}
@@ -0,0 +1,45 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class ManifestFilenameOption implements Option {
+    private String manifestFilename;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the filename of the manifest listing the SHA-256 hash of each output file";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-manifestFilename", "--manifest-filename");
+    }
+
+    @Override
+    public String getParameters() {
+        return "filename";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        manifestFilename = arguments.get(0);
+        return true;
+    }
+
+    public String getManifestFilename() {
+        return manifestFilename;
+    }
+
+}
@@ -2,10 +2,11 @@ package com.apifest.doclet.option;
 
 import jdk.javadoc.doclet.Doclet.Option;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class MappingVersionOption implements Option {
-    private String mappingVersion;
+    private List<String> mappingVersions = new ArrayList<>();
 
     @Override
     public int getArgumentCount() {
@@ -14,7 +15,7 @@ public class MappingVersionOption implements Option {
 
     @Override
     public String getDescription() {
-        return "Sets the mapping version";
+        return "Sets the mapping version, several versions can be comma separated";
     }
 
     @Override
@@ -34,11 +35,24 @@ public class MappingVersionOption implements Option {
 
     @Override
     public boolean process(String option, List<String> arguments) {
-        mappingVersion = arguments.get(0);
+        mappingVersions = new ArrayList<>();
+        for (String version : arguments.get(0).split(",")) {
+            version = version.trim();
+            if (!version.isEmpty() && !mappingVersions.contains(version)) {
+                mappingVersions.add(version);
+            }
+        }
         return true;
     }
 
+    /**
+     * Returns the first mapping version.
+     */
     public String getMappingVersion() {
-        return mappingVersion;
+        return mappingVersions.isEmpty() ? null : mappingVersions.get(0);
+    }
+
+    public List<String> getMappingVersions() {
+        return mappingVersions;
     }
 }
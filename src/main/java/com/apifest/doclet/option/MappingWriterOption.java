@@ -0,0 +1,54 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class MappingWriterOption implements Option {
+    public static final String STAX = "stax";
+    public static final String JAXB = "jaxb";
+
+    private String mappingWriter = STAX;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the writer of the mapping file. Available writers: [" + STAX + ", " + JAXB + "]";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-mappingWriter", "--mapping-writer");
+    }
+
+    @Override
+    public String getParameters() {
+        return "writer";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        String value = arguments.get(0);
+        if (STAX.equalsIgnoreCase(value)) {
+            mappingWriter = STAX;
+        } else if (JAXB.equalsIgnoreCase(value)) {
+            mappingWriter = JAXB;
+        } else {
+            throw new IllegalArgumentException("The mapping writer " + value + " is invalid");
+        }
+        return true;
+    }
+
+    public boolean isJaxb() {
+        return JAXB.equals(mappingWriter);
+    }
+}
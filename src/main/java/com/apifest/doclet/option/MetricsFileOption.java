@@ -0,0 +1,44 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class MetricsFileOption implements Option {
+    private String metricsFile;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the file where the timing and counters of the run are written as JSON";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-metricsFile", "--metrics-file");
+    }
+
+    @Override
+    public String getParameters() {
+        return "file";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        metricsFile = arguments.get(0);
+        return true;
+    }
+
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+}
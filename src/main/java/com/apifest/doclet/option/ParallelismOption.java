@@ -0,0 +1,52 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class ParallelismOption implements Option {
+    private int parallelism = 1;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the number of threads used to parse interfaces";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-parallelism", "--parallelism");
+    }
+
+    @Override
+    public String getParameters() {
+        return "threads";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        String value = arguments.get(0);
+        try {
+            parallelism = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("parallelism is not an integer.");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1.");
+        }
+        return true;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
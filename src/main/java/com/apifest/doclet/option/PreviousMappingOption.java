@@ -0,0 +1,45 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class PreviousMappingOption implements Option {
+    private String previousMapping;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the previously generated mapping file; the endpoints added, removed and changed since then are written as a delta";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-previousMapping", "--previous-mapping");
+    }
+
+    @Override
+    public String getParameters() {
+        return "filename";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        previousMapping = arguments.get(0);
+        return true;
+    }
+
+    public String getPreviousMapping() {
+        return previousMapping;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class RegexCheckOption implements Option {
+    public static final String WARN = "warn";
+    public static final String FAIL = "fail";
+
+    private String regexCheck = WARN;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets whether variable expressions with exponential backtracking fail the build. Available values: [" + WARN + ", " + FAIL + "]";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-regexCheck", "--regex-check");
+    }
+
+    @Override
+    public String getParameters() {
+        return "check";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        String value = arguments.get(0);
+        if (WARN.equalsIgnoreCase(value)) {
+            regexCheck = WARN;
+        } else if (FAIL.equalsIgnoreCase(value)) {
+            regexCheck = FAIL;
+        } else {
+            throw new IllegalArgumentException("The regex check " + value + " is invalid");
+        }
+        return true;
+    }
+
+    public boolean isFail() {
+        return FAIL.equals(regexCheck);
+    }
+}
@@ -0,0 +1,45 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class RouteIndexFilenameOption implements Option {
+    private String routeIndexFilename;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the filename of the route index written with the mapping";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-routeIndexFilename", "--route-index-filename");
+    }
+
+    @Override
+    public String getParameters() {
+        return "filename";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        routeIndexFilename = arguments.get(0);
+        return true;
+    }
+
+    public String getRouteIndexFilename() {
+        return routeIndexFilename;
+    }
+
+}
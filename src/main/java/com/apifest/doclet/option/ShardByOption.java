@@ -0,0 +1,52 @@
+package com.apifest.doclet.option;
+
+import com.apifest.doclet.ShardBy;
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ShardByOption implements Option {
+    private ShardBy shardBy;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Splits the mapping into one file per shard. Available criteria: "
+                + Stream.of(ShardBy.values()).map(ShardBy::getValue).collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-shardBy", "--shard-by");
+    }
+
+    @Override
+    public String getParameters() {
+        return "criterion";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        String value = arguments.get(0);
+        shardBy = ShardBy.fromString(value);
+        if (shardBy == null) {
+            throw new IllegalArgumentException("The shard criterion " + value + " is invalid");
+        }
+        return true;
+    }
+
+    public ShardBy getShardBy() {
+        return shardBy;
+    }
+}
@@ -0,0 +1,52 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class SpillThresholdOption implements Option {
+    private int spillThreshold;
+
+    @Override
+    public int getArgumentCount() {
+        return 1;  // The option requires one argument
+    }
+
+    @Override
+    public String getDescription() {
+        return "Sets the number of parsed endpoints kept in memory, the others are sorted on disk (0 keeps all in memory)";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-spillThreshold", "--spill-threshold");
+    }
+
+    @Override
+    public String getParameters() {
+        return "endpoints";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        String value = arguments.get(0);
+        try {
+            spillThreshold = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("spillThreshold is not an integer.");
+        }
+        if (spillThreshold < 0) {
+            throw new IllegalArgumentException("spillThreshold must not be negative.");
+        }
+        return true;
+    }
+
+    public int getSpillThreshold() {
+        return spillThreshold;
+    }
+}
@@ -0,0 +1,44 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class UnorderedOption implements Option {
+    private boolean unordered;
+
+    @Override
+    public int getArgumentCount() {
+        return 0;  // The option is a flag
+    }
+
+    @Override
+    public String getDescription() {
+        return "Writes the endpoints in the order they are parsed, ignoring apifest.docs.order, while the interfaces are parsed";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of("-unordered", "--unordered");
+    }
+
+    @Override
+    public String getParameters() {
+        return "";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        unordered = true;
+        return true;
+    }
+
+    public boolean isUnordered() {
+        return unordered;
+    }
+}
@@ -0,0 +1,40 @@
+package com.apifest.doclet.option;
+
+import jdk.javadoc.doclet.Doclet.Option;
+
+import java.util.List;
+
+public class WatchOption implements Option {
+    public static final List<String> NAMES = List.of("-watch", "--watch");
+
+    @Override
+    public int getArgumentCount() {
+        return 0;  // The option is a flag
+    }
+
+    @Override
+    public String getDescription() {
+        return "Watches the source path and regenerates the output files on change";
+    }
+
+    @Override
+    public Kind getKind() {
+        return Option.Kind.STANDARD;
+    }
+
+    @Override
+    public List<String> getNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getParameters() {
+        return "";
+    }
+
+    @Override
+    public boolean process(String option, List<String> arguments) {
+        // read by Doclet.main, which starts the DocletWatcher instead of a single javadoc run
+        return true;
+    }
+}
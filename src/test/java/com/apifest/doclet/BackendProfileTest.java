@@ -0,0 +1,81 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BackendProfileTest
+{
+    private Path profilesFile(String... lines) throws IOException {
+        Path file = Files.createTempFile("backend-profiles", ".properties");
+        file.toFile().deleteOnExit();
+        Files.write(file, List.of(lines));
+        return file;
+    }
+
+    @Test
+    public void when_load_profiles_return_them_by_name() throws IOException {
+        // GIVEN
+        Path file = profilesFile("prod.host=api.example.com", "prod.port=443", "dev.host=localhost",
+                "dev.defaultAction=com.all.mappings.DevAction", "dev.defaultFilter=com.all.mappings.DevFilter");
+
+        // WHEN
+        Map<String, BackendProfile> profiles = BackendProfile.load(file);
+
+        // THEN
+        Assert.assertEquals(List.copyOf(profiles.keySet()), List.of("dev", "prod"));
+        Assert.assertEquals(profiles.get("prod").getBackendHost(), "api.example.com");
+        Assert.assertEquals(profiles.get("prod").getBackendPort(), Integer.valueOf(443));
+        Assert.assertNull(profiles.get("dev").getBackendPort());
+        Assert.assertEquals(profiles.get("dev").getDefaultActionClass(), "com.all.mappings.DevAction");
+        Assert.assertEquals(profiles.get("dev").getDefaultFilterClass(), "com.all.mappings.DevFilter");
+    }
+
+    @Test
+    public void when_profile_value_is_unset_use_default() throws IOException {
+        // GIVEN
+        BackendProfile profile = BackendProfile.load(profilesFile("dev.host=localhost")).get("dev");
+
+        // WHEN
+        BackendProfile resolved = profile.withDefaults("backend.example.com", 8080, "com.all.mappings.DefaultAction", null);
+
+        // THEN
+        Assert.assertEquals(resolved.getName(), "dev");
+        Assert.assertEquals(resolved.getBackendHost(), "localhost");
+        Assert.assertEquals(resolved.getBackendPort(), Integer.valueOf(8080));
+        Assert.assertEquals(resolved.getDefaultActionClass(), "com.all.mappings.DefaultAction");
+        Assert.assertNull(resolved.getDefaultFilterClass());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void when_profile_port_is_not_integer_throw_exception() throws IOException {
+        BackendProfile.load(profilesFile("dev.port=abc"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void when_profile_key_is_unknown_throw_exception() throws IOException {
+        BackendProfile.load(profilesFile("dev.hostname=localhost"));
+    }
+}
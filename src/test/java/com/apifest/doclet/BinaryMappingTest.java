@@ -0,0 +1,104 @@
+package com.apifest.doclet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.apifest.api.Mapping;
+import com.apifest.api.MappingAction;
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.ResponseFilter;
+
+public class BinaryMappingTest
+{
+    private ParsedEndpoint endpoint(String externalEndpoint, boolean hidden) {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        mappingEndpoint.setExternalEndpoint(externalEndpoint);
+        mappingEndpoint.setInternalEndpoint("/internal" + externalEndpoint);
+        mappingEndpoint.setMethod("GET");
+        mappingEndpoint.setHidden(hidden);
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setMappingEndpoint(mappingEndpoint);
+        return parsed;
+    }
+
+    @Test
+    public void when_read_binary_mapping_return_written_endpoints() throws IOException {
+        // GIVEN
+        ParsedEndpoint metrics = endpoint("/v1/twitter/followers/{user_id}/metrics", false);
+        MappingEndpoint mappingEndpoint = metrics.getMappingEndpoint();
+        mappingEndpoint.setAuthType("user");
+        mappingEndpoint.setScope("twitter_followers");
+        mappingEndpoint.setVarName("user_id");
+        mappingEndpoint.setVarExpression("\\d+");
+        mappingEndpoint.setBackendHost("metrics.local");
+        mappingEndpoint.setBackendPort(8080);
+        MappingAction action = new MappingAction();
+        action.setActionClassName("com.all.mappings.DefaultMapping");
+        mappingEndpoint.setAction(action);
+        ResponseFilter filter = new ResponseFilter();
+        filter.setFilterClassName("com.all.mappings.DefaultFilter");
+        mappingEndpoint.setFilters(filter);
+        Map<String, String> customProperties = new HashMap<String, String>();
+        customProperties.put("com.apifest.doclet.tests.resources.CustomAnnotation.value", "test,test2");
+        mappingEndpoint.setCustomProperties(customProperties);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // WHEN
+        try (BinaryMappingWriter writer = new BinaryMappingWriter(out, "v1", "localhost", 1212)) {
+            writer.write(endpoint("/v1/twitter/followers/stream", false));
+            writer.write(endpoint("/v1/twitter/followers/hidden", true));
+            writer.write(metrics);
+        }
+        Mapping mapping = BinaryMappingReader.read(new ByteArrayInputStream(out.toByteArray()));
+        // THEN
+        Assert.assertEquals(mapping.getVersion(), "v1");
+        Assert.assertEquals(mapping.getBackend().getHost(), "localhost");
+        Assert.assertEquals(mapping.getBackend().getPort(), Integer.valueOf(1212));
+        List<MappingEndpoint> endpoints = mapping.getEndpointsWrapper().getEndpoints();
+        Assert.assertEquals(endpoints.size(), 2);
+        Assert.assertEquals(endpoints.get(0).getExternalEndpoint(), "/v1/twitter/followers/stream");
+        Assert.assertNull(endpoints.get(0).getAction());
+        Assert.assertNull(endpoints.get(0).getBackendPort());
+        MappingEndpoint read = endpoints.get(1);
+        Assert.assertEquals(read.getInternalEndpoint(), "/internal/v1/twitter/followers/{user_id}/metrics");
+        Assert.assertEquals(read.getMethod(), "GET");
+        Assert.assertEquals(read.getAuthType(), "user");
+        Assert.assertEquals(read.getScope(), "twitter_followers");
+        Assert.assertEquals(read.getVarName(), "user_id");
+        Assert.assertEquals(read.getVarExpression(), "\\d+");
+        Assert.assertEquals(read.getBackendHost(), "metrics.local");
+        Assert.assertEquals(read.getBackendPort(), Integer.valueOf(8080));
+        Assert.assertEquals(read.getAction().getActionClassName(), "com.all.mappings.DefaultMapping");
+        Assert.assertEquals(read.getFilter().getFilterClassName(), "com.all.mappings.DefaultFilter");
+        Assert.assertEquals(read.getCustomProperties(), customProperties);
+    }
+
+    @Test
+    public void when_written_in_two_passes_output_is_same_as_written_on_close() throws IOException {
+        // GIVEN
+        List<ParsedEndpoint> parsedEndpoints = List.of(endpoint("/v1/twitter/followers/stream", false),
+                endpoint("/v1/twitter/followers/hidden", true), endpoint("/v1/twitter/followers/{user_id}", false));
+        ByteArrayOutputStream onClose = new ByteArrayOutputStream();
+        try (BinaryMappingWriter writer = new BinaryMappingWriter(onClose, "v1", "localhost", 1212)) {
+            for (ParsedEndpoint parsed : parsedEndpoints) {
+                writer.write(parsed);
+            }
+        }
+        ByteArrayOutputStream twoPasses = new ByteArrayOutputStream();
+        // WHEN
+        BinaryMappingWriter.write(twoPasses, "v1", "localhost", 1212, parsedEndpoints);
+        // THEN
+        Assert.assertEquals(twoPasses.toByteArray(), onClose.toByteArray());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void when_read_other_content_throw_exception() throws IOException {
+        BinaryMappingReader.read(new ByteArrayInputStream("<mappings/>".getBytes()));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DocCommentTagsTest
+{
+    @Test
+    public void when_parse_doc_comment_return_apifest_tags() {
+        // GIVEN
+        String docComment = " Returns the followers.\n"
+                + " @apifest.external /followers/{id}\n"
+                + " @apifest.docs.description Returns the followers of a user,\n"
+                + " {@code id} is the user id.\n"
+                + " @param id the user id\n"
+                + " @apifest.re.id \\d+\n";
+
+        // WHEN
+        Map<String, String> tags = DocCommentTags.parse(docComment);
+
+        // THEN
+        Assert.assertEquals(tags.size(), 3);
+        Assert.assertEquals(tags.get("apifest.external"), "/followers/{id}");
+        Assert.assertEquals(tags.get("apifest.docs.description"), "Returns the followers of a user,\n {@code id} is the user id.");
+        Assert.assertEquals(tags.get("apifest.re.id"), "\\d+");
+    }
+
+    @Test
+    public void when_tag_is_repeated_keep_first_value() {
+        // GIVEN
+        String docComment = " @apifest.scope basic\n @apifest.scope extended\n";
+
+        // WHEN
+        Map<String, String> tags = DocCommentTags.parse(docComment);
+
+        // THEN
+        Assert.assertEquals(tags.get("apifest.scope"), "basic");
+    }
+
+    @Test
+    public void when_at_sign_is_inside_text_do_not_start_tag() {
+        // GIVEN
+        String docComment = " @apifest.docs.description Contact support@example.com\n @apifest.hidden\n";
+
+        // WHEN
+        Map<String, String> tags = DocCommentTags.parse(docComment);
+
+        // THEN
+        Assert.assertEquals(tags.get("apifest.docs.description"), "Contact support@example.com");
+        Assert.assertEquals(tags.get("apifest.hidden"), "");
+    }
+}
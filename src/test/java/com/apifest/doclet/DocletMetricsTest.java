@@ -0,0 +1,72 @@
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DocletMetricsTest
+{
+    @Test
+    public void when_metrics_written_contain_phases_counts_and_output_sizes() throws IOException {
+        // GIVEN
+        Path outputFile = Files.createTempFile("apifest-docs", ".json");
+        Files.write(outputFile, "{}".getBytes(StandardCharsets.UTF_8));
+        Path metricsFile = Files.createTempFile("apifest-metrics", ".json");
+        DocletMetrics metrics = new DocletMetrics(true);
+        DocletMetrics.Timer timer = metrics.start(DocletMetrics.Phase.PARSE_ENDPOINT);
+        metrics.increment(DocletMetrics.Counter.ENDPOINTS, 3);
+        metrics.increment(DocletMetrics.Counter.TAGS, 10);
+        metrics.increment(DocletMetrics.Counter.TAGS, 5);
+        timer.stop();
+        metrics.recordOutput(outputFile.toString());
+        // WHEN
+        metrics.write(metricsFile);
+        // THEN
+        JsonNode json = new ObjectMapper().readTree(metricsFile.toFile());
+        Assert.assertTrue(json.get("phases").get("parseEndpoint").get("wallMillis").asDouble() > 0);
+        Assert.assertTrue(json.get("phases").has("writeMapping"));
+        Assert.assertEquals(json.get("counts").get("endpoints").asLong(), 3);
+        Assert.assertEquals(json.get("counts").get("tags").asLong(), 15);
+        Assert.assertEquals(json.get("outputBytes").get(outputFile.toString()).asLong(), 2);
+    }
+
+    @Test
+    public void when_metrics_written_output_sizes_are_sorted_by_file() throws IOException {
+        // GIVEN
+        Path outputDir = Files.createTempDirectory("apifest-outputs");
+        Path mapping = Files.write(outputDir.resolve("all-mappings.xml"), "<mappings/>".getBytes(StandardCharsets.UTF_8));
+        Path docs = Files.write(outputDir.resolve("all-mappings-docs.json"), "{}".getBytes(StandardCharsets.UTF_8));
+        Path metricsFile = Files.createTempFile("apifest-metrics", ".json");
+        DocletMetrics metrics = new DocletMetrics(true);
+        metrics.recordOutput(mapping.toString());
+        metrics.recordOutput(docs.toString());
+        // WHEN
+        metrics.write(metricsFile);
+        // THEN
+        JsonNode outputBytes = new ObjectMapper().readTree(metricsFile.toFile()).get("outputBytes");
+        List<String> files = new ArrayList<String>();
+        outputBytes.fieldNames().forEachRemaining(files::add);
+        Assert.assertEquals(files, List.of(docs.toString(), mapping.toString()));
+    }
+
+    @Test
+    public void when_metrics_disabled_nothing_is_measured() {
+        // GIVEN
+        DocletMetrics metrics = new DocletMetrics(false);
+        // WHEN
+        metrics.start(DocletMetrics.Phase.PARSE_ENDPOINT).stop();
+        metrics.increment(DocletMetrics.Counter.ENDPOINTS, 3);
+        // THEN
+        Assert.assertEquals(metrics.getWallNanos(DocletMetrics.Phase.PARSE_ENDPOINT), 0);
+        Assert.assertEquals(metrics.getCount(DocletMetrics.Counter.ENDPOINTS), 0);
+    }
+}
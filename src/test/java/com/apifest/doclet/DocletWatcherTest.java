@@ -0,0 +1,71 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DocletWatcherTest
+{
+    @Test
+    public void when_source_path_and_files_given_watch_entries_and_file_directories() {
+        // GIVEN
+        String[] args = {"-mode", "doc", "-sourcepath", "src/main/java" + File.pathSeparator + "src/test/java",
+                "src/test/java/com/apifest/doclet/tests/resources/TestParsingResource.java"};
+        // WHEN
+        Set<Path> paths = DocletWatcher.watchedPaths(args);
+        // THEN
+        Assert.assertEquals(List.copyOf(paths), List.of(
+                Paths.get("src/main/java").toAbsolutePath().normalize(),
+                Paths.get("src/test/java").toAbsolutePath().normalize(),
+                Paths.get("src/test/java/com/apifest/doclet/tests/resources").toAbsolutePath().normalize()));
+    }
+
+    @Test
+    public void when_no_source_path_watch_working_directory() {
+        // WHEN
+        Set<Path> paths = DocletWatcher.watchedPaths(new String[] {"-mode", "doc", "com.apifest.doclet.tests.resources"});
+        // THEN
+        Assert.assertEquals(List.copyOf(paths), List.of(Paths.get("").toAbsolutePath()));
+    }
+
+    @Test
+    public void when_cache_dir_not_set_prepend_it() {
+        // WHEN
+        String[] args = DocletWatcher.withCacheDir(new String[] {"-mode", "doc"}, Paths.get("/tmp/cache"));
+        // THEN
+        Assert.assertEquals(args, new String[] {"-cacheDir", Paths.get("/tmp/cache").toString(), "-mode", "doc"});
+    }
+
+    @Test
+    public void when_cache_dir_set_keep_arguments() {
+        // GIVEN
+        String[] args = {"--cache-dir", "/var/cache/apifest", "-mode", "doc"};
+        // WHEN
+        String[] withCacheDir = DocletWatcher.withCacheDir(args, Paths.get("/tmp/cache"));
+        // THEN
+        Assert.assertSame(withCacheDir, args);
+        Assert.assertTrue(DocletWatcher.hasCacheDir(args));
+    }
+}
@@ -0,0 +1,118 @@
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.apifest.api.MappingAction;
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.MappingEndpointDocumentation;
+import com.apifest.api.ResponseFilter;
+import com.apifest.api.params.RequestParamDocumentation;
+
+public class EndpointCacheTest
+{
+    private Path cacheDir;
+    private List<ParsedEndpoint> endpoints;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        cacheDir = Files.createTempDirectory("apifest-cache");
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        mappingEndpoint.setExternalEndpoint("/v1/twitter/followers/metrics");
+        mappingEndpoint.setMethod("GET");
+        mappingEndpoint.setHidden(true);
+        MappingAction action = new MappingAction();
+        action.setActionClassName("com.all.mappings.DefaultMapping");
+        mappingEndpoint.setAction(action);
+        ResponseFilter filter = new ResponseFilter();
+        filter.setFilterClassName("com.all.mappings.DefaultFilter");
+        mappingEndpoint.setFilters(filter);
+        Map<String, String> customProperties = new HashMap<String, String>();
+        customProperties.put("com.apifest.doclet.tests.resources.CustomAnnotation.value", "test,test2");
+        mappingEndpoint.setCustomProperties(customProperties);
+        MappingEndpointDocumentation mappingEndpointDocumentation = new MappingEndpointDocumentation();
+        mappingEndpointDocumentation.setEndpoint("/v1/twitter/followers/metrics");
+        mappingEndpointDocumentation.setOrder(2);
+        RequestParamDocumentation param = new RequestParamDocumentation();
+        param.setName("ids");
+        param.setRequired(true);
+        List<RequestParamDocumentation> params = new ArrayList<RequestParamDocumentation>();
+        params.add(param);
+        mappingEndpointDocumentation.setRequestParamsDocumentation(params);
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setMappingEndpoint(mappingEndpoint);
+        parsed.setMappingEndpointDocumentation(mappingEndpointDocumentation);
+        endpoints = new ArrayList<ParsedEndpoint>();
+        endpoints.add(parsed);
+    }
+
+    @Test
+    public void when_entry_is_cached_return_same_endpoints() throws IOException {
+        // GIVEN
+        EndpointCache cache = new EndpointCache(cacheDir, "v1");
+        String key = cache.key("interface TestParsingResource {}", "getMetrics GET {}");
+        cache.put("com.apifest.TestParsingResource", key, endpoints);
+        // WHEN
+        List<ParsedEndpoint> cached = new EndpointCache(cacheDir, "v1").get("com.apifest.TestParsingResource", key);
+        // THEN
+        Assert.assertEquals(cached.size(), 1);
+        MappingEndpoint mappingEndpoint = cached.get(0).getMappingEndpoint();
+        Assert.assertEquals(mappingEndpoint.getExternalEndpoint(), "/v1/twitter/followers/metrics");
+        Assert.assertEquals(mappingEndpoint.isHidden(), true);
+        Assert.assertEquals(mappingEndpoint.getAction().getActionClassName(), "com.all.mappings.DefaultMapping");
+        Assert.assertEquals(mappingEndpoint.getFilter().getFilterClassName(), "com.all.mappings.DefaultFilter");
+        Assert.assertEquals(mappingEndpoint.getCustomProperties().get("com.apifest.doclet.tests.resources.CustomAnnotation.value"), "test,test2");
+        MappingEndpointDocumentation mappingEndpointDocumentation = cached.get(0).getMappingEndpointDocumentation();
+        Assert.assertEquals(mappingEndpointDocumentation.getOrder(), 2);
+        Assert.assertEquals(mappingEndpointDocumentation.getRequestParamsDocumentation().get(0).getName(), "ids");
+    }
+
+    @Test
+    public void when_source_or_options_change_entry_is_not_used() throws IOException {
+        // GIVEN
+        EndpointCache cache = new EndpointCache(cacheDir, "v1");
+        cache.put("com.apifest.TestParsingResource", cache.key("interface TestParsingResource {}", "getMetrics GET {}"), endpoints);
+        // WHEN
+        EndpointCache otherOptions = new EndpointCache(cacheDir, "v2");
+        // THEN
+        Assert.assertNull(cache.get("com.apifest.TestParsingResource", cache.key("interface TestParsingResource { }", "getMetrics GET {}")));
+        Assert.assertNull(otherOptions.get("com.apifest.TestParsingResource", otherOptions.key("interface TestParsingResource {}", "getMetrics GET {}")));
+    }
+
+    @Test
+    public void when_resolved_annotations_change_entry_is_not_used() throws IOException {
+        // GIVEN
+        EndpointCache cache = new EndpointCache(cacheDir, "v1");
+        cache.put("com.apifest.TestParsingResource", cache.key("interface TestParsingResource {}", "getMetrics GET {}"), endpoints);
+        // WHEN
+        // a constant used in an annotation value changed in another file
+        String key = cache.key("interface TestParsingResource {}", "getMetrics GET {com.apifest.Audited.level=2}");
+        // THEN
+        Assert.assertNull(cache.get("com.apifest.TestParsingResource", key));
+    }
+
+    @Test
+    public void when_prune_remove_entries_not_used() throws IOException {
+        // GIVEN
+        EndpointCache cache = new EndpointCache(cacheDir, "v1");
+        String key = cache.key("interface TestParsingResource {}", "getMetrics GET {}");
+        cache.put("com.apifest.TestParsingResource", key, endpoints);
+        cache.put("com.apifest.RemovedResource", key, endpoints);
+        // WHEN
+        EndpointCache nextRun = new EndpointCache(cacheDir, "v1");
+        nextRun.get("com.apifest.TestParsingResource", key);
+        nextRun.prune();
+        // THEN
+        Assert.assertTrue(Files.exists(cacheDir.resolve("com.apifest.TestParsingResource.json")));
+        Assert.assertFalse(Files.exists(cacheDir.resolve("com.apifest.RemovedResource.json")));
+    }
+}
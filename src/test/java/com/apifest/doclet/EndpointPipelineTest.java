@@ -0,0 +1,116 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class EndpointPipelineTest
+{
+    private ParsedEndpoint endpoint(String externalEndpoint) {
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setExternalEndpoint(externalEndpoint);
+        return parsed;
+    }
+
+    private List<String> externalEndpoints(ParsedEndpoints endpoints) {
+        List<String> externalEndpoints = new ArrayList<String>();
+        for (ParsedEndpoint parsed : endpoints) {
+            externalEndpoints.add(parsed.getExternalEndpoint());
+        }
+        return externalEndpoints;
+    }
+
+    @Test
+    public void when_finished_every_subscription_iterates_all_published_endpoints_in_order() throws Exception {
+        // GIVEN
+        EndpointPipeline pipeline = new EndpointPipeline(4);
+        EndpointPipeline.Subscription first = pipeline.subscribe();
+        EndpointPipeline.Subscription second = pipeline.subscribe();
+
+        // WHEN
+        pipeline.publish(endpoint("/a"));
+        pipeline.publish(endpoint("/b"));
+        pipeline.finish();
+
+        // THEN
+        Assert.assertEquals(externalEndpoints(first), List.of("/a", "/b"));
+        Assert.assertEquals(externalEndpoints(second), List.of("/a", "/b"));
+        Assert.assertEquals(first.size(), 2);
+    }
+
+    @Test
+    public void when_publishing_more_than_capacity_wait_for_the_writer() throws Exception {
+        // GIVEN
+        EndpointPipeline pipeline = new EndpointPipeline(1);
+        EndpointPipeline.Subscription subscription = pipeline.subscribe();
+        List<String> written = new ArrayList<String>();
+        Thread writer = new Thread(() -> written.addAll(externalEndpoints(subscription)));
+        writer.start();
+
+        // WHEN
+        for (int i = 0; i < 100; i++) {
+            pipeline.publish(endpoint("/e" + i));
+        }
+        pipeline.finish();
+        writer.join(10000);
+
+        // THEN
+        Assert.assertEquals(written.size(), 100);
+        Assert.assertEquals(written.get(99), "/e99");
+    }
+
+    @Test(expectedExceptions = CancellationException.class)
+    public void when_aborted_iteration_fails() throws Exception {
+        // GIVEN
+        EndpointPipeline pipeline = new EndpointPipeline(4);
+        EndpointPipeline.Subscription subscription = pipeline.subscribe();
+        pipeline.publish(endpoint("/a"));
+
+        // WHEN
+        pipeline.abort();
+
+        // THEN
+        externalEndpoints(subscription);
+    }
+
+    @Test
+    public void when_subscription_closed_publishing_does_not_block() throws Exception {
+        // GIVEN
+        EndpointPipeline pipeline = new EndpointPipeline(1);
+        EndpointPipeline.Subscription closed = pipeline.subscribe();
+        EndpointPipeline.Subscription open = pipeline.subscribe();
+        closed.close();
+        List<String> written = new ArrayList<String>();
+        Thread writer = new Thread(() -> written.addAll(externalEndpoints(open)));
+        writer.start();
+
+        // WHEN
+        pipeline.publish(endpoint("/a"));
+        pipeline.publish(endpoint("/b"));
+        pipeline.finish();
+        writer.join(10000);
+
+        // THEN
+        Assert.assertEquals(written, List.of("/a", "/b"));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.MappingEndpointDocumentation;
+
+public class EndpointStoreTest
+{
+    private ParsedEndpoint endpoint(String externalEndpoint, int order) {
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        MappingEndpoint endpoint = new MappingEndpoint();
+        endpoint.setExternalEndpoint(externalEndpoint);
+        parsed.setMappingEndpoint(endpoint);
+        MappingEndpointDocumentation med = new MappingEndpointDocumentation();
+        med.setEndpoint(externalEndpoint);
+        med.setOrder(order);
+        parsed.setMappingEndpointDocumentation(med);
+        parsed.setExternalEndpoint(externalEndpoint);
+        return parsed;
+    }
+
+    private List<String> externalEndpoints(EndpointStore store) {
+        List<String> externalEndpoints = new ArrayList<String>();
+        for (ParsedEndpoint parsed : store) {
+            externalEndpoints.add(parsed.getMappingEndpoint().getExternalEndpoint());
+        }
+        return externalEndpoints;
+    }
+
+    private List<String> storeAndOrder(int spillThreshold, int[] orders) throws Exception {
+        try (EndpointStore store = new EndpointStore(spillThreshold)) {
+            for (int i = 0; i < orders.length; i++) {
+                store.add(endpoint("/e" + i, orders[i]));
+            }
+            store.order();
+            Assert.assertEquals(store.size(), orders.length);
+            return externalEndpoints(store);
+        }
+    }
+
+    @Test
+    public void when_spilled_return_same_order_as_in_memory() throws Exception {
+        // GIVEN
+        int[] orders = {5, 1, 3, 1, 0, 5, 2, 3, 1, 4, 0, 2, 7};
+        // WHEN
+        List<String> inMemory = storeAndOrder(0, orders);
+        List<String> spilled = storeAndOrder(2, orders);
+        // THEN
+        Assert.assertEquals(spilled, inMemory);
+        Assert.assertEquals(inMemory.subList(0, 5), List.of("/e4", "/e10", "/e1", "/e3", "/e8"));
+    }
+
+    @Test
+    public void when_runs_exceed_merge_width_merge_them_in_passes() throws Exception {
+        // GIVEN
+        int[] orders = new int[EndpointStore.MAX_OPEN_RUNS * 3 + 1];
+        for (int i = 0; i < orders.length; i++) {
+            orders[i] = (i * 7) % 10;
+        }
+        // WHEN
+        List<String> spilled = storeAndOrder(1, orders);
+        // THEN
+        Assert.assertEquals(spilled, storeAndOrder(0, orders));
+    }
+
+    @Test
+    public void when_spilled_apply_version_to_endpoints_read_back() throws Exception {
+        // GIVEN
+        try (EndpointStore store = new EndpointStore(2)) {
+            store.add(endpoint("/users", 2));
+            store.add(endpoint("/orders", 1));
+            store.add(endpoint("/items", 0));
+            // WHEN
+            store.order();
+            store.apply("v2", null);
+            // THEN
+            Assert.assertTrue(store.isSpilled());
+            Assert.assertEquals(externalEndpoints(store), List.of("/v2/items", "/v2/orders", "/v2/users"));
+            Assert.assertEquals(externalEndpoints(store), List.of("/v2/items", "/v2/orders", "/v2/users"));
+        }
+    }
+}
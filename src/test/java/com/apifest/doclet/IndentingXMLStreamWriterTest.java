@@ -0,0 +1,106 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class IndentingXMLStreamWriterTest
+{
+    @Test
+    public void when_elements_nested_indent_each_level() throws Exception {
+        // GIVEN
+        StringWriter out = new StringWriter();
+        XMLStreamWriter writer = new IndentingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(out));
+        // WHEN
+        writer.writeStartElement("mappings");
+        writer.writeStartElement("endpoints");
+        writer.writeStartElement("endpoint");
+        writer.writeStartElement("action");
+        writer.writeCharacters("com.all.mappings.DefaultMapping");
+        writer.writeEndElement();
+        writer.writeEmptyElement("filter");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEmptyElement("backend");
+        writer.writeEndDocument();
+        writer.close();
+        // THEN
+        Assert.assertEquals(out.toString(), "<mappings>\n"
+                + "    <endpoints>\n"
+                + "        <endpoint>\n"
+                + "            <action>com.all.mappings.DefaultMapping</action>\n"
+                + "            <filter/>\n"
+                + "        </endpoint>\n"
+                + "    </endpoints>\n"
+                + "    <backend/>\n"
+                + "</mappings>");
+    }
+
+    @Test
+    public void when_element_has_text_do_not_indent_its_content() throws Exception {
+        // GIVEN
+        StringWriter out = new StringWriter();
+        XMLStreamWriter writer = new IndentingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(out));
+        // WHEN
+        writer.writeStartElement("description");
+        writer.writeCharacters("Returns ");
+        writer.writeStartElement("b");
+        writer.writeCharacters("all");
+        writer.writeEndElement();
+        writer.writeCharacters(" followers");
+        writer.writeStartElement("i");
+        writer.writeEmptyElement("br");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.close();
+        // THEN
+        Assert.assertEquals(out.toString(), "<description>Returns <b>all</b> followers<i>\n        <br/>\n    </i></description>");
+    }
+
+    @Test
+    public void when_element_has_no_content_write_it_as_empty_element() throws Exception {
+        // GIVEN
+        StringWriter out = new StringWriter();
+        XMLStreamWriter writer = new IndentingXMLStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(out));
+        // WHEN
+        writer.writeStartElement("endpoints");
+        writer.writeStartElement("endpoint");
+        writer.writeAttribute("method", "GET");
+        writer.writeEndElement();
+        writer.writeStartElement("endpoint");
+        writer.writeAttribute("method", "POST");
+        writer.writeStartElement("action");
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+        // THEN
+        Assert.assertEquals(out.toString(), "<endpoints>\n"
+                + "    <endpoint method=\"GET\"/>\n"
+                + "    <endpoint method=\"POST\">\n"
+                + "        <action/>\n"
+                + "    </endpoint>\n"
+                + "</endpoints>");
+    }
+}
@@ -0,0 +1,151 @@
+package com.apifest.doclet;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.apifest.api.MappingAction;
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.ResponseFilter;
+
+public class MappingDeltaTest
+{
+    private MappingEndpoint mappingEndpoint(String method, String externalEndpoint, String scope) {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        mappingEndpoint.setExternalEndpoint(externalEndpoint);
+        mappingEndpoint.setInternalEndpoint("/internal" + externalEndpoint);
+        mappingEndpoint.setMethod(method);
+        mappingEndpoint.setScope(scope);
+        return mappingEndpoint;
+    }
+
+    private ParsedEndpoint parsed(MappingEndpoint mappingEndpoint) {
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setMappingEndpoint(mappingEndpoint);
+        return parsed;
+    }
+
+    private Map<String, MappingEndpoint> previous() {
+        Map<String, MappingEndpoint> previous = new LinkedHashMap<String, MappingEndpoint>();
+        for (MappingEndpoint endpoint : new MappingEndpoint[] {
+                mappingEndpoint("GET", "/v1/twitter/followers/stream", "twitter_followers"),
+                mappingEndpoint("GET", "/v1/twitter/followers/metrics", "twitter_followers"),
+                mappingEndpoint("POST", "/v1/twitter/followers/metrics", "twitter_followers"),
+                mappingEndpoint("DELETE", "/v1/twitter/followers/metrics", "twitter_followers")}) {
+            previous.put(MappingDelta.key(endpoint), endpoint);
+        }
+        return previous;
+    }
+
+    private List<ParsedEndpoint> current() {
+        List<ParsedEndpoint> current = new ArrayList<ParsedEndpoint>();
+        current.add(parsed(mappingEndpoint("GET", "/v1/twitter/followers/stream", "twitter_followers")));
+        current.add(parsed(mappingEndpoint("GET", "/v1/twitter/followers/metrics", "twitter_metrics")));
+        current.add(parsed(mappingEndpoint("PUT", "/v1/twitter/followers/metrics", "twitter_followers")));
+        MappingEndpoint hidden = mappingEndpoint("POST", "/v1/twitter/followers/metrics", "twitter_followers");
+        hidden.setHidden(true);
+        current.add(parsed(hidden));
+        return current;
+    }
+
+    @Test
+    public void when_compare_with_previous_mapping_return_added_removed_and_changed() {
+        // WHEN
+        MappingDelta delta = new MappingDelta(previous(), current());
+        // THEN
+        Assert.assertEquals(delta.getAdded().size(), 1);
+        Assert.assertEquals(delta.getAdded().get(0).getMethod(), "PUT");
+        Assert.assertEquals(delta.getChanged().size(), 1);
+        Assert.assertEquals(delta.getChanged().get(0).getScope(), "twitter_metrics");
+        Assert.assertEquals(delta.getRemoved().size(), 2);
+        Assert.assertEquals(MappingDelta.key(delta.getRemoved().get(0)), "POST /v1/twitter/followers/metrics");
+        Assert.assertEquals(MappingDelta.key(delta.getRemoved().get(1)), "DELETE /v1/twitter/followers/metrics");
+    }
+
+    @Test
+    public void when_custom_properties_are_equal_endpoint_is_not_changed() {
+        // GIVEN
+        MappingEndpoint previousEndpoint = mappingEndpoint("GET", "/v1/twitter/followers/stream", "twitter_followers");
+        Map<String, String> previousProperties = new HashMap<String, String>();
+        previousProperties.put("a", "1");
+        previousProperties.put("b", "2");
+        previousEndpoint.setCustomProperties(previousProperties);
+        MappingEndpoint endpoint = mappingEndpoint("GET", "/v1/twitter/followers/stream", "twitter_followers");
+        Map<String, String> properties = new LinkedHashMap<String, String>();
+        properties.put("b", "2");
+        properties.put("a", "1");
+        endpoint.setCustomProperties(properties);
+        Map<String, MappingEndpoint> previous = new HashMap<String, MappingEndpoint>();
+        previous.put(MappingDelta.key(previousEndpoint), previousEndpoint);
+        List<ParsedEndpoint> current = new ArrayList<ParsedEndpoint>();
+        current.add(parsed(endpoint));
+        // WHEN
+        MappingDelta delta = new MappingDelta(previous, current);
+        // THEN
+        Assert.assertTrue(delta.getAdded().isEmpty());
+        Assert.assertTrue(delta.getChanged().isEmpty());
+        Assert.assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    @Test
+    public void when_read_mapping_file_return_endpoints_by_key() throws Exception {
+        // GIVEN
+        Path mappingFile = Files.createTempFile("output_mapping_v1", ".xml");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MappingWriter writer = new MappingWriter(out, "v1", "localhost", 1212)) {
+            for (ParsedEndpoint parsed : current()) {
+                writer.write(parsed);
+            }
+        }
+        Files.write(mappingFile, out.toByteArray());
+        // WHEN
+        Map<String, MappingEndpoint> endpoints = MappingDelta.readMapping(mappingFile);
+        // THEN
+        Assert.assertEquals(endpoints.size(), 3);
+        Assert.assertEquals(endpoints.get("GET /v1/twitter/followers/metrics").getScope(), "twitter_metrics");
+        Assert.assertTrue(endpoints.containsKey("PUT /v1/twitter/followers/metrics"));
+    }
+
+    @Test
+    public void when_mapping_file_is_read_back_delta_with_same_endpoints_is_empty() throws Exception {
+        // GIVEN
+        MappingEndpoint metrics = mappingEndpoint("GET", "/v1/twitter/followers/{user_id}/metrics", "twitter_followers");
+        metrics.setAuthType("user");
+        metrics.setVarName("user_id");
+        metrics.setVarExpression("\\d+");
+        metrics.setBackendHost("metrics.local");
+        metrics.setBackendPort(8080);
+        MappingAction action = new MappingAction();
+        action.setActionClassName("com.all.mappings.DefaultMapping");
+        metrics.setAction(action);
+        ResponseFilter filter = new ResponseFilter();
+        filter.setFilterClassName("com.all.mappings.DefaultFilter");
+        metrics.setFilters(filter);
+        Map<String, String> customProperties = new HashMap<String, String>();
+        customProperties.put("com.apifest.doclet.tests.resources.CustomAnnotation.value", "test,test2");
+        metrics.setCustomProperties(customProperties);
+        List<ParsedEndpoint> current = current();
+        current.add(parsed(metrics));
+        Path mappingFile = Files.createTempFile("output_mapping_v1", ".xml");
+        try (MappingWriter writer = new MappingWriter(Files.newOutputStream(mappingFile), "v1", "localhost", 1212)) {
+            for (ParsedEndpoint parsed : current) {
+                writer.write(parsed);
+            }
+        }
+        // WHEN
+        MappingDelta delta = new MappingDelta(MappingDelta.readMapping(mappingFile), current);
+        // THEN
+        Assert.assertTrue(delta.getAdded().isEmpty());
+        Assert.assertTrue(delta.getChanged().isEmpty());
+        Assert.assertTrue(delta.getRemoved().isEmpty());
+        Files.delete(mappingFile);
+    }
+}
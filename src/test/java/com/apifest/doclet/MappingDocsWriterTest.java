@@ -0,0 +1,131 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.apifest.api.MappingDocumentation;
+import com.apifest.api.MappingEndpointDocumentation;
+import com.apifest.api.params.RequestParamDocumentation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.module.jakarta.xmlbind.JakartaXmlBindAnnotationIntrospector;
+
+public class MappingDocsWriterTest
+{
+    private ParsedEndpoint endpoint(String endpoint, boolean hidden) {
+        MappingEndpointDocumentation mappingEndpointDocumentation = new MappingEndpointDocumentation();
+        mappingEndpointDocumentation.setEndpoint(endpoint);
+        mappingEndpointDocumentation.setMethod("GET");
+        mappingEndpointDocumentation.setScope("twitter_followers");
+        mappingEndpointDocumentation.setGroup("Twitter Followers");
+        mappingEndpointDocumentation.setOrder(2);
+        mappingEndpointDocumentation.setHidden(hidden);
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setMappingEndpointDocumentation(mappingEndpointDocumentation);
+        return parsed;
+    }
+
+    /**
+     * The documentation as the doc mode wrote it before streaming: the whole tree serialized at once.
+     */
+    private byte[] serializeTree(List<ParsedEndpoint> parsedEndpoints, String version) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setAnnotationIntrospector(new JakartaXmlBindAnnotationIntrospector(TypeFactory.defaultInstance()));
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        MappingDocumentation mappingDocs = new MappingDocumentation();
+        List<MappingEndpointDocumentation> endpoints = new ArrayList<MappingEndpointDocumentation>();
+        for (ParsedEndpoint parsed : parsedEndpoints) {
+            MappingEndpointDocumentation endpoint = parsed.getMappingEndpointDocumentation();
+            if (endpoint != null && !endpoint.isHidden()) {
+                endpoints.add(endpoint);
+            }
+        }
+        mappingDocs.setVersion(version);
+        mappingDocs.setMappingEndpointDocumentation(endpoints);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapper.writeValue(out, mappingDocs);
+        return out.toByteArray();
+    }
+
+    private byte[] stream(List<ParsedEndpoint> parsedEndpoints, String version) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MappingDocsWriter writer = new MappingDocsWriter(out, version)) {
+            for (ParsedEndpoint parsed : parsedEndpoints) {
+                writer.write(parsed);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void when_streamed_output_is_byte_identical_to_serialized_tree() throws Exception {
+        // GIVEN
+        List<ParsedEndpoint> parsedEndpoints = new ArrayList<ParsedEndpoint>();
+        ParsedEndpoint withCustomProperties = endpoint("/v1/twitter/followers/metrics", false);
+        TreeMap<String, String> customProperties = new TreeMap<String, String>();
+        customProperties.put("com.apifest.doclet.tests.resources.CustomAnnotation.value", "test,test2");
+        customProperties.put("com.apifest.doclet.tests.resources.Multiple.value", "2,1");
+        withCustomProperties.getMappingEndpointDocumentation().setCustomProperties(customProperties);
+        List<RequestParamDocumentation> params = new ArrayList<RequestParamDocumentation>();
+        RequestParamDocumentation param = new RequestParamDocumentation();
+        param.setName("ids");
+        param.setType("string");
+        param.setDescription("** user ids goes here **");
+        param.setRequired(true);
+        params.add(param);
+        withCustomProperties.getMappingEndpointDocumentation().setRequestParamsDocumentation(params);
+        parsedEndpoints.add(withCustomProperties);
+        parsedEndpoints.add(endpoint("/v1/twitter/followers/hidden", true));
+        ParsedEndpoint withExamples = endpoint("/v1/twitter/followers/stream", false);
+        StringBuilder exampleResult = new StringBuilder("[");
+        for (int i = 0; i < 20000; i++) {
+            exampleResult.append("{\"tw_id\": ").append(i).append(", \"text\": \"caf\u00e9 \\\"quoted\\\"\\n\\u2603\"},\n");
+        }
+        exampleResult.append("{}]");
+        withExamples.getMappingEndpointDocumentation().setExampleRequest("{\"ids\": \"1,2,3\"}");
+        withExamples.getMappingEndpointDocumentation().setExampleResult(exampleResult.toString());
+        parsedEndpoints.add(withExamples);
+
+        // WHEN
+        byte[] streamed = stream(parsedEndpoints, "v1");
+
+        // THEN
+        Assert.assertEquals(streamed, serializeTree(parsedEndpoints, "v1"), "docs JSON");
+    }
+
+    @Test
+    public void when_all_endpoints_hidden_output_is_byte_identical_to_serialized_tree() throws Exception {
+        // GIVEN
+        List<ParsedEndpoint> parsedEndpoints = new ArrayList<ParsedEndpoint>();
+        parsedEndpoints.add(endpoint("/v1/twitter/followers/hidden", true));
+
+        // WHEN
+        byte[] streamed = stream(parsedEndpoints, "v1");
+
+        // THEN
+        Assert.assertEquals(streamed, serializeTree(parsedEndpoints, "v1"), "docs JSON");
+    }
+}
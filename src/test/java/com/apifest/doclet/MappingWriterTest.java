@@ -0,0 +1,49 @@
+package com.apifest.doclet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.apifest.api.MappingEndpoint;
+
+public class MappingWriterTest
+{
+    private ParsedEndpoint endpoint(String externalEndpoint, boolean hidden) {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        mappingEndpoint.setExternalEndpoint(externalEndpoint);
+        mappingEndpoint.setInternalEndpoint("/internal" + externalEndpoint);
+        mappingEndpoint.setMethod("GET");
+        mappingEndpoint.setHidden(hidden);
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setMappingEndpoint(mappingEndpoint);
+        return parsed;
+    }
+
+    @Test
+    public void when_write_endpoints_output_mapping_document() throws Exception {
+        // GIVEN
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // WHEN
+        try (MappingWriter writer = new MappingWriter(out, "v1", "localhost", 1212)) {
+            writer.write(endpoint("/v1/twitter/followers/stream", false));
+            writer.write(endpoint("/v1/twitter/followers/hidden", true));
+            writer.write(endpoint("/v1/twitter/followers/metrics", false));
+        }
+        // THEN
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+        Element root = document.getDocumentElement();
+        Assert.assertEquals(root.getTagName(), "mappings");
+        Assert.assertEquals(root.getAttribute("version"), "v1");
+        Element backend = (Element) root.getElementsByTagName("backend").item(0);
+        Assert.assertEquals(backend.getAttribute("host"), "localhost");
+        Assert.assertEquals(backend.getAttribute("port"), "1212");
+        Assert.assertEquals(root.getElementsByTagName("endpoints").getLength(), 1);
+        Assert.assertEquals(root.getElementsByTagName("endpoint").getLength(), 2);
+    }
+}
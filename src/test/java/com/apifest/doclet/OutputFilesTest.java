@@ -0,0 +1,237 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class OutputFilesTest
+{
+    private static final FileTime OLD_TIME = FileTime.fromMillis(1000000000000L);
+
+    private Path outputDir;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        outputDir = Files.createTempDirectory("apifest-output");
+    }
+
+    private OutputFiles.Content content(String text) {
+        return out -> out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void when_content_is_unchanged_keep_existing_file() throws IOException {
+        // GIVEN
+        Path file = outputDir.resolve("docs.json");
+        Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, OLD_TIME);
+        OutputFiles outputFiles = new OutputFiles();
+        // WHEN
+        boolean replaced = outputFiles.write(file, content("{}"));
+        // THEN
+        Assert.assertFalse(replaced);
+        Assert.assertEquals(Files.getLastModifiedTime(file), OLD_TIME);
+        Assert.assertEquals(outputFiles.getUnchangedCount(), 1);
+        try (Stream<Path> files = Files.list(outputDir)) {
+            Assert.assertEquals(files.count(), 1);
+        }
+    }
+
+    @Test
+    public void when_content_changed_replace_file() throws IOException {
+        // GIVEN
+        Path file = outputDir.resolve("docs.json");
+        Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, OLD_TIME);
+        OutputFiles outputFiles = new OutputFiles();
+        // WHEN
+        boolean replaced = outputFiles.write(file, content("{\"a\":1}"));
+        // THEN
+        Assert.assertTrue(replaced);
+        Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "{\"a\":1}");
+        Assert.assertEquals(outputFiles.getUnchangedCount(), 0);
+        Assert.assertEquals(outputFiles.getHashes().get(file.toAbsolutePath().normalize()), OutputFiles.hash(file));
+    }
+
+    @Test
+    public void when_content_fails_keep_existing_file() throws IOException {
+        // GIVEN
+        Path file = outputDir.resolve("docs.json");
+        Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+        OutputFiles outputFiles = new OutputFiles();
+        // WHEN
+        try {
+            outputFiles.write(file, out -> {
+                out.write('[');
+                throw new IOException("failed");
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+        // THEN
+        Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "{}");
+        try (Stream<Path> files = Files.list(outputDir)) {
+            Assert.assertEquals(files.count(), 1);
+        }
+    }
+
+    @Test
+    public void when_deferred_replace_files_only_on_commit() throws IOException {
+        // GIVEN
+        Path docs = outputDir.resolve("docs.json");
+        Path mapping = outputDir.resolve("mapping.xml");
+        Path staleShard = Files.write(outputDir.resolve("mapping_old.xml"), "<old/>".getBytes(StandardCharsets.UTF_8));
+        Files.write(docs, "{}".getBytes(StandardCharsets.UTF_8));
+        OutputFiles outputFiles = new OutputFiles();
+        outputFiles.defer();
+        outputFiles.write(docs, content("{\"a\":1}"));
+        outputFiles.write(mapping, content("<mapping/>"));
+        outputFiles.delete(staleShard);
+        Assert.assertEquals(new String(Files.readAllBytes(docs), StandardCharsets.UTF_8), "{}");
+        Assert.assertFalse(Files.exists(mapping));
+        Assert.assertTrue(Files.exists(staleShard));
+        // WHEN
+        outputFiles.commitDeferred();
+        // THEN
+        Assert.assertEquals(new String(Files.readAllBytes(docs), StandardCharsets.UTF_8), "{\"a\":1}");
+        Assert.assertEquals(new String(Files.readAllBytes(mapping), StandardCharsets.UTF_8), "<mapping/>");
+        Assert.assertFalse(Files.exists(staleShard));
+        try (Stream<Path> files = Files.list(outputDir)) {
+            Assert.assertEquals(files.count(), 2);
+        }
+    }
+
+    @Test
+    public void when_deferred_return_size_of_written_content() throws IOException {
+        // GIVEN
+        Path docs = outputDir.resolve("docs.json");
+        Files.write(docs, "{}".getBytes(StandardCharsets.UTF_8));
+        OutputFiles outputFiles = new OutputFiles();
+        outputFiles.defer();
+        // WHEN
+        outputFiles.write(docs, content("{\"a\":1}"));
+        // THEN
+        Assert.assertEquals(outputFiles.getSize(docs), 7L);
+        Assert.assertEquals(outputFiles.getSize(outputDir.resolve("mapping.xml")), -1L);
+        outputFiles.discardDeferred();
+    }
+
+    @Test
+    public void when_deferred_files_are_discarded_keep_existing_files() throws IOException {
+        // GIVEN
+        Path docs = outputDir.resolve("docs.json");
+        Files.write(docs, "{}".getBytes(StandardCharsets.UTF_8));
+        OutputFiles outputFiles = new OutputFiles();
+        outputFiles.defer();
+        outputFiles.write(docs, content("{\"a\":1}"));
+        try {
+            outputFiles.write(outputDir.resolve("mapping.xml"), out -> {
+                out.write('<');
+                throw new IOException("failed");
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+        // WHEN
+        outputFiles.discardDeferred();
+        // THEN
+        Assert.assertEquals(new String(Files.readAllBytes(docs), StandardCharsets.UTF_8), "{}");
+        try (Stream<Path> files = Files.list(outputDir)) {
+            Assert.assertEquals(files.count(), 1);
+        }
+    }
+
+    @Test
+    public void when_write_manifest_list_hashes_relative_to_manifest() throws IOException {
+        // GIVEN
+        Files.createDirectories(outputDir.resolve("mappings"));
+        OutputFiles outputFiles = new OutputFiles();
+        outputFiles.write(outputDir.resolve("mappings/all-mappings.xml"), content("<mappings/>"));
+        outputFiles.write(outputDir.resolve("docs.json"), content("{}"));
+        // WHEN
+        outputFiles.writeManifest(outputDir.resolve("manifest.json"));
+        // THEN
+        JsonNode manifest = new ObjectMapper().readTree(outputDir.resolve("manifest.json").toFile());
+        Assert.assertEquals(manifest.get("algorithm").asText(), "SHA-256");
+        Assert.assertEquals(manifest.get("files").fieldNames().next(), "docs.json");
+        Assert.assertEquals(manifest.get("files").get("mappings/all-mappings.xml").asText(),
+                OutputFiles.hash(outputDir.resolve("mappings/all-mappings.xml")));
+    }
+
+    @Test
+    public void when_compression_is_gzip_sibling_write_file_and_compressed_sibling() throws IOException {
+        // GIVEN
+        Path file = outputDir.resolve("docs.json");
+        OutputFiles outputFiles = new OutputFiles();
+        // WHEN
+        List<Path> written = outputFiles.write(file, Compression.GZIP_SIBLING, content("{\"a\":1}"));
+        // THEN
+        Assert.assertEquals(written, List.of(file, outputDir.resolve("docs.json.gz")));
+        Assert.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "{\"a\":1}");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(outputDir.resolve("docs.json.gz")))) {
+            Assert.assertEquals(new String(in.readAllBytes(), StandardCharsets.UTF_8), "{\"a\":1}");
+        }
+    }
+
+    @Test
+    public void when_compression_is_gzip_write_only_compressed_file() throws IOException {
+        // GIVEN
+        Path file = outputDir.resolve("all-mappings.xml");
+        OutputFiles outputFiles = new OutputFiles();
+        // WHEN
+        List<Path> written = outputFiles.write(file, Compression.GZIP, content("<mappings/>"));
+        // THEN
+        Assert.assertEquals(written, List.of(outputDir.resolve("all-mappings.xml.gz")));
+        Assert.assertFalse(Files.exists(file));
+        // the gzip header has no timestamp, the same content is left unchanged
+        outputFiles.write(file, Compression.GZIP, content("<mappings/>"));
+        Assert.assertEquals(outputFiles.getUnchangedCount(), 1);
+    }
+
+    @Test
+    public void when_compression_is_gzip_delete_uncompressed_file_on_commit() throws IOException {
+        // GIVEN
+        Path file = Files.write(outputDir.resolve("all-mappings.xml"), "<old/>".getBytes(StandardCharsets.UTF_8));
+        OutputFiles outputFiles = new OutputFiles();
+        outputFiles.defer();
+        outputFiles.write(file, Compression.GZIP, content("<mappings/>"));
+        Assert.assertTrue(Files.exists(file));
+        // WHEN
+        outputFiles.commitDeferred();
+        // THEN
+        Assert.assertFalse(Files.exists(file));
+        Assert.assertTrue(Files.exists(outputDir.resolve("all-mappings.xml.gz")));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PackageFilterTest
+{
+    @Test
+    public void when_no_globs_accept_all_packages() {
+        // GIVEN
+        PackageFilter filter = new PackageFilter(List.of(), List.of());
+        // THEN
+        Assert.assertTrue(filter.accept("com.example.users.api"));
+    }
+
+    @Test
+    public void when_glob_has_single_star_match_one_segment() {
+        // GIVEN
+        PackageFilter filter = new PackageFilter(List.of("com.example.*.api"), List.of());
+        // THEN
+        Assert.assertTrue(filter.accept("com.example.users.api"));
+        Assert.assertFalse(filter.accept("com.example.api"));
+        Assert.assertFalse(filter.accept("com.example.users.v1.api"));
+        Assert.assertFalse(filter.accept("com.example.users.apis"));
+    }
+
+    @Test
+    public void when_glob_has_double_star_match_any_segments() {
+        // GIVEN
+        PackageFilter filter = new PackageFilter(List.of("com.example.**.api", "org.acme.**"), List.of());
+        // THEN
+        Assert.assertTrue(filter.accept("com.example.api"));
+        Assert.assertTrue(filter.accept("com.example.users.v1.api"));
+        Assert.assertTrue(filter.accept("org.acme"));
+        Assert.assertTrue(filter.accept("org.acme.users"));
+        Assert.assertFalse(filter.accept("org.acmecorp"));
+        Assert.assertFalse(filter.accept("com.examples.api"));
+    }
+
+    @Test
+    public void when_package_is_included_and_excluded_skip_it() {
+        // GIVEN
+        PackageFilter filter = new PackageFilter(List.of("com.example.**"), List.of("com.example.**.internal"));
+        // THEN
+        Assert.assertTrue(filter.accept("com.example.users"));
+        Assert.assertFalse(filter.accept("com.example.users.internal"));
+    }
+}
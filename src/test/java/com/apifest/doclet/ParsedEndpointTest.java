@@ -0,0 +1,121 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.MappingEndpointDocumentation;
+import com.apifest.doclet.option.MappingVersionOption;
+
+public class ParsedEndpointTest
+{
+    private ParsedEndpoint parsedEndpoint(String externalEndpoint) {
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setExternalEndpoint(externalEndpoint);
+        parsed.setMappingEndpoint(new MappingEndpoint());
+        parsed.setMappingEndpointDocumentation(new MappingEndpointDocumentation());
+        return parsed;
+    }
+
+    @Test
+    public void when_apply_version_prefix_mapping_and_docs_endpoint() {
+        // GIVEN
+        ParsedEndpoint parsed = parsedEndpoint("/users/{id}");
+
+        // WHEN
+        parsed.applyVersion("v1");
+
+        // THEN
+        Assert.assertEquals(parsed.getMappingEndpoint().getExternalEndpoint(), "/v1/users/{id}");
+        Assert.assertEquals(parsed.getMappingEndpointDocumentation().getEndpoint(), "/v1/users/{id}");
+    }
+
+    @Test
+    public void when_apply_another_version_replace_previous_prefix() {
+        // GIVEN
+        ParsedEndpoint parsed = parsedEndpoint("/users/{id}");
+        parsed.applyVersion("v1");
+
+        // WHEN
+        parsed.applyVersion("v2");
+
+        // THEN
+        Assert.assertEquals(parsed.getMappingEndpoint().getExternalEndpoint(), "/v2/users/{id}");
+        Assert.assertEquals(parsed.getMappingEndpointDocumentation().getEndpoint(), "/v2/users/{id}");
+        Assert.assertEquals(parsed.getExternalEndpoint(), "/users/{id}");
+    }
+
+    @Test
+    public void when_apply_profile_resolve_defaults_unless_endpoint_sets_them() {
+        // GIVEN
+        Map<String, String> tagMap = new HashMap<String, String>();
+        tagMap.put("apifest.action", "com.all.mappings.EndpointAction");
+        ParsedEndpoint parsed = parsedEndpoint("/users/{id}");
+        parsed.setProfileTags(Parser.parseProfileTags(tagMap));
+        BackendProfile profile = new BackendProfile("prod", "api.example.com", 443, "com.all.mappings.ProdAction",
+                "com.all.mappings.ProdFilter");
+
+        // WHEN
+        parsed.applyProfile(profile);
+
+        // THEN
+        MappingEndpoint endpoint = parsed.getMappingEndpoint();
+        Assert.assertEquals(endpoint.getBackendHost(), "api.example.com");
+        Assert.assertEquals(endpoint.getBackendPort(), Integer.valueOf(443));
+        Assert.assertEquals(endpoint.getAction().getActionClassName(), "com.all.mappings.EndpointAction");
+        Assert.assertEquals(endpoint.getFilter().getFilterClassName(), "com.all.mappings.ProdFilter");
+    }
+
+    @Test
+    public void when_endpoint_sets_backend_keep_it_for_every_profile() {
+        // GIVEN
+        Map<String, String> tagMap = new HashMap<String, String>();
+        tagMap.put("apifest.backend.host", "followers.example.com");
+        tagMap.put("apifest.backend.port", "9090");
+        ParsedEndpoint parsed = parsedEndpoint("/users/{id}");
+        parsed.setProfileTags(Parser.parseProfileTags(tagMap));
+        parsed.applyProfile(new BackendProfile("dev", "localhost", 8080, "com.all.mappings.DevAction", null));
+
+        // WHEN
+        parsed.applyProfile(new BackendProfile("prod", "api.example.com", 443, null, null));
+
+        // THEN
+        MappingEndpoint endpoint = parsed.getMappingEndpoint();
+        Assert.assertEquals(endpoint.getBackendHost(), "followers.example.com");
+        Assert.assertEquals(endpoint.getBackendPort(), Integer.valueOf(9090));
+        Assert.assertNull(endpoint.getAction());
+    }
+
+    @Test
+    public void when_mapping_version_list_split_and_skip_duplicates() {
+        // GIVEN
+        MappingVersionOption option = new MappingVersionOption();
+
+        // WHEN
+        option.process("-mappingVersion", List.of("v1, v2,v1,v3"));
+
+        // THEN
+        Assert.assertEquals(option.getMappingVersions(), List.of("v1", "v2", "v3"));
+        Assert.assertEquals(option.getMappingVersion(), "v1");
+    }
+}
@@ -20,6 +20,7 @@ import java.text.ParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
@@ -196,6 +197,15 @@ public class ParserTest {
         Assert.assertEquals(mappingEndpoint.getVarExpression(), pathExpression);
     }
 
+    @Test
+    public void test_parse_var_expressions_with_spaces() {
+        tagMap.put("apifest.internal", "/komfo/{tag}/{id}");
+        tagMap.put("apifest.re.tag", "[a-z]+(?: [a-z]+)*");
+        tagMap.put("apifest.re.id", "\\d+");
+        Map<String, String> varExpressions = Parser.parseVarExpressions(tagMap);
+        Assert.assertEquals(varExpressions.toString(), "{tag=[a-z]+(?: [a-z]+)*, id=\\d+}");
+    }
+
     @Test
     public void test_parse_request_params() {
         Parser.parseRequestParams(tagMap, mappingEndpointDocumentation);
@@ -234,6 +244,28 @@ public class ParserTest {
         }
     }
 
+    @Test
+    public void test_parse_request_params_ignores_invalid_names_and_unknown_suffixes() {
+        tagMap.put("apifest.docs.params.audience-id", " not a valid parameter name");
+        tagMap.put("apifest.docs.params.audienceId.nested.type", "string");
+        Parser.parseRequestParams(tagMap, mappingEndpointDocumentation);
+        List<RequestParamDocumentation> testReqParam = mappingEndpointDocumentation.getRequestParamsDocumentation();
+        Assert.assertEquals(testReqParam.size(), 2);
+        for (RequestParamDocumentation currentParam : testReqParam) {
+            Assert.assertEquals(currentParam.getType(), "number");
+        }
+    }
+
+    @Test
+    public void test_parse_request_params_in_tag_order() {
+        Parser.parseRequestParams(new TreeMap<String, String>(tagMap), mappingEndpointDocumentation);
+        List<RequestParamDocumentation> testReqParam = mappingEndpointDocumentation.getRequestParamsDocumentation();
+        Assert.assertEquals(testReqParam.get(0).getName(), "audienceId");
+        Assert.assertEquals(testReqParam.get(0).getExampleValue(), "12345678");
+        Assert.assertEquals(testReqParam.get(1).getName(), "audienceId2");
+        Assert.assertEquals(testReqParam.get(1).isRequired(), false);
+    }
+
     @Test
     public void test_parse_result_params() {
         Parser.parseResultParams(tagMap, mappingEndpointDocumentation);
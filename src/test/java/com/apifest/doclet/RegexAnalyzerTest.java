@@ -0,0 +1,107 @@
+package com.apifest.doclet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RegexAnalyzerTest
+{
+    @Test
+    public void when_expression_is_invalid_return_error() {
+        // WHEN
+        RegexAnalyzer.Result result = RegexAnalyzer.analyze("([a-z]+");
+        // THEN
+        Assert.assertFalse(result.isValid());
+        Assert.assertNotNull(result.getError());
+    }
+
+    @Test
+    public void when_expression_has_single_quantifiers_return_linear() {
+        for (String expression : new String[] {"\\d+", "[a-z0-9_-]+", "\\d+[a-z]+", "(a|b)*", "(?>\\d+)+", "\\d++\\d+", "\\w{1,32}", "(?i)[a-f0-9]{24}",
+                "(a+b)+", "(?:a|ab)*c", "(\\d{1,3}\\.)+", "\\d+(-\\d+)*", "[a-z]+(?: [a-z]+)*", "(\\d{1,3}\\.){3}\\d{1,3}", "([a-z]+-){2,4}"}) {
+            // WHEN
+            RegexAnalyzer.Result result = RegexAnalyzer.analyze(expression);
+            // THEN
+            Assert.assertTrue(result.isValid(), expression);
+            Assert.assertEquals(result.getComplexity(), RegexAnalyzer.Complexity.LINEAR, expression);
+            Assert.assertEquals(result.getEstimatedCost(), "O(n)", expression);
+        }
+    }
+
+    @Test
+    public void when_expression_has_nested_quantifiers_return_exponential() {
+        // WHEN
+        RegexAnalyzer.Result result = RegexAnalyzer.analyze("(\\d+)+");
+        // THEN
+        Assert.assertTrue(result.isRisky());
+        Assert.assertEquals(result.getComplexity(), RegexAnalyzer.Complexity.EXPONENTIAL);
+        Assert.assertEquals(result.getReason(), "nested quantifiers");
+        Assert.assertEquals(result.getEstimatedCost(), "O(2^n)");
+    }
+
+    @Test
+    public void when_iteration_may_be_the_inner_quantifier_alone_return_exponential() {
+        for (String expression : new String[] {"(\\d+-?)+", "((\\d+)?x?)*", "(\\d{1,3})+", "(?:[a-z]|\\d+)+"}) {
+            // WHEN
+            RegexAnalyzer.Result result = RegexAnalyzer.analyze(expression);
+            // THEN
+            Assert.assertEquals(result.getComplexity(), RegexAnalyzer.Complexity.EXPONENTIAL, expression);
+        }
+    }
+
+    @Test
+    public void when_expression_has_quantified_overlapping_alternation_return_exponential() {
+        // WHEN
+        RegexAnalyzer.Result result = RegexAnalyzer.analyze("(?:\\d|\\w)*c");
+        // THEN
+        Assert.assertEquals(result.getComplexity(), RegexAnalyzer.Complexity.EXPONENTIAL);
+        Assert.assertEquals(result.getReason(), "quantified alternation with overlapping branches");
+    }
+
+    @Test
+    public void when_expression_has_consecutive_overlapping_quantifiers_return_polynomial() {
+        // WHEN
+        RegexAnalyzer.Result square = RegexAnalyzer.analyze("\\w+\\d+");
+        RegexAnalyzer.Result cube = RegexAnalyzer.analyze("\\d+-?.*\\d+");
+        // THEN
+        Assert.assertEquals(square.getComplexity(), RegexAnalyzer.Complexity.POLYNOMIAL);
+        Assert.assertEquals(square.getEstimatedCost(), "O(n^2)");
+        Assert.assertEquals(cube.getEstimatedCost(), "O(n^3)");
+    }
+
+    @Test
+    public void when_expression_has_unsupported_construct_return_unknown() {
+        // WHEN
+        RegexAnalyzer.Result result = RegexAnalyzer.analyze("\\N{DIGIT ONE}+");
+        // THEN
+        Assert.assertTrue(result.isValid());
+        Assert.assertFalse(result.isKnown());
+        Assert.assertFalse(result.isRisky());
+        Assert.assertEquals(result.getComplexity(), RegexAnalyzer.Complexity.UNKNOWN);
+        Assert.assertEquals(result.getEstimatedCost(), "unknown");
+    }
+
+    @Test
+    public void when_bounded_quantifier_repeats_overlapping_quantifier_return_polynomial() {
+        // WHEN
+        RegexAnalyzer.Result wildcard = RegexAnalyzer.analyze("(.*a){12}");
+        RegexAnalyzer.Result optional = RegexAnalyzer.analyze("(a?){30}a{30}");
+        RegexAnalyzer.Result range = RegexAnalyzer.analyze("(?:\\w+){2,5}");
+        // THEN
+        Assert.assertEquals(wildcard.getComplexity(), RegexAnalyzer.Complexity.POLYNOMIAL);
+        Assert.assertEquals(wildcard.getEstimatedCost(), "O(n^12)");
+        Assert.assertEquals(optional.getComplexity(), RegexAnalyzer.Complexity.POLYNOMIAL);
+        Assert.assertEquals(optional.getEstimatedCost(), "O(n^30)");
+        Assert.assertEquals(range.getEstimatedCost(), "O(n^5)");
+    }
+
+    @Test
+    public void when_bounded_repetition_cannot_be_proven_linear_return_unknown() {
+        for (String expression : new String[] {"(a+b*){3}", "((?:ab+)+c){3}", "(x|y+){3}"}) {
+            // WHEN
+            RegexAnalyzer.Result result = RegexAnalyzer.analyze(expression);
+            // THEN
+            Assert.assertEquals(result.getComplexity(), RegexAnalyzer.Complexity.UNKNOWN, expression);
+            Assert.assertFalse(result.isRisky(), expression);
+        }
+    }
+}
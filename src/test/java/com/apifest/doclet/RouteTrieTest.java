@@ -0,0 +1,122 @@
+package com.apifest.doclet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.apifest.api.MappingEndpoint;
+
+public class RouteTrieTest
+{
+    private ParsedEndpoint endpoint(String method, String externalEndpoint, boolean hidden, String... varExpressions) {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        mappingEndpoint.setExternalEndpoint(externalEndpoint);
+        mappingEndpoint.setMethod(method);
+        mappingEndpoint.setHidden(hidden);
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setMappingEndpoint(mappingEndpoint);
+        // variable names and expressions
+        Map<String, String> expressions = new LinkedHashMap<String, String>();
+        for (int i = 0; i < varExpressions.length; i += 2) {
+            expressions.put(varExpressions[i], varExpressions[i + 1]);
+        }
+        parsed.setVarExpressions(expressions);
+        return parsed;
+    }
+
+    private RouteTrie trie() {
+        List<ParsedEndpoint> endpoints = new ArrayList<ParsedEndpoint>();
+        endpoints.add(endpoint("GET", "/v1/twitter/followers/{user_id}/metrics", false, "user_id", "\\d+"));
+        endpoints.add(endpoint("GET", "/v1/twitter/followers/stream", false));
+        endpoints.add(endpoint("GET", "/v1/twitter/followers/hidden", true));
+        endpoints.add(endpoint("POST", "/v1/twitter/followers/{user_id}/metrics", false, "user_id", "\\d+"));
+        endpoints.add(endpoint("GET", "/v1/twitter/{name}", false));
+        endpoints.add(endpoint("GET", "/v1/users/{user_id}/items/{item_id}.json", false, "user_id", "\\d+", "item_id", "[a-z]+"));
+        return RouteTrie.build("v1", endpoints);
+    }
+
+    @Test
+    public void when_match_literal_and_variable_segments_return_route() {
+        // GIVEN
+        RouteTrie trie = trie();
+        // WHEN
+        RouteTrie.Route metrics = trie.match("GET", "/v1/twitter/followers/123/metrics");
+        RouteTrie.Route postMetrics = trie.match("post", "/v1/twitter/followers/123/metrics?since=1");
+        RouteTrie.Route item = trie.match("GET", "/v1/users/7/items/abc.json");
+        // THEN
+        Assert.assertEquals(metrics.getExternalEndpoint(), "/v1/twitter/followers/{user_id}/metrics");
+        Assert.assertEquals(metrics.getIndex(), 0);
+        Assert.assertEquals(postMetrics.getMethod(), "POST");
+        Assert.assertEquals(item.getExternalEndpoint(), "/v1/users/{user_id}/items/{item_id}.json");
+    }
+
+    @Test
+    public void when_no_endpoint_matches_return_null() {
+        // GIVEN
+        RouteTrie trie = trie();
+        // THEN
+        Assert.assertNull(trie.match("GET", "/v1/twitter/followers/abc/metrics"));
+        Assert.assertNull(trie.match("DELETE", "/v1/twitter/followers/stream"));
+        Assert.assertNull(trie.match("GET", "/v1/twitter/followers/hidden"));
+        Assert.assertNull(trie.match("GET", "/v1/users/7/items/123.json"));
+    }
+
+    @Test
+    public void when_literal_and_variable_segments_match_prefer_literal() {
+        // GIVEN
+        RouteTrie trie = trie();
+        // THEN
+        Assert.assertEquals(trie.match("GET", "/v1/twitter/followers/stream").getExternalEndpoint(), "/v1/twitter/followers/stream");
+        Assert.assertEquals(trie.match("GET", "/v1/twitter/followers").getExternalEndpoint(), "/v1/twitter/{name}");
+    }
+
+    @Test
+    public void when_read_written_trie_match_same_routes() throws IOException {
+        // GIVEN
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trie().write(out);
+        // WHEN
+        RouteTrie trie = RouteTrie.read(new ByteArrayInputStream(out.toByteArray()));
+        // THEN
+        Assert.assertEquals(trie.getVersion(), "v1");
+        Assert.assertEquals(trie.getRoutes().size(), 5);
+        Assert.assertEquals(trie.match("GET", "/v1/twitter/followers/123/metrics").getIndex(), 0);
+        Assert.assertEquals(trie.match("GET", "/v1/twitter/followers/stream").getIndex(), 1);
+        Assert.assertNull(trie.match("GET", "/v1/twitter/followers/abc/metrics"));
+    }
+
+    @Test
+    public void when_same_route_is_declared_twice_index_is_position_in_mapping_file() {
+        // GIVEN
+        List<ParsedEndpoint> endpoints = new ArrayList<ParsedEndpoint>();
+        endpoints.add(endpoint("GET", "/v1/twitter/followers/stream", false));
+        endpoints.add(endpoint("GET", "/v1/twitter/followers/hidden", true));
+        endpoints.add(endpoint("GET", "/v1/twitter/followers/stream", false));
+        endpoints.add(endpoint("GET", "/v1/twitter/followers/metrics", false));
+        // WHEN
+        RouteTrie trie = RouteTrie.build("v1", endpoints);
+        // THEN
+        Assert.assertEquals(trie.getRoutes().size(), 2);
+        Assert.assertEquals(trie.match("GET", "/v1/twitter/followers/stream").getIndex(), 0);
+        Assert.assertEquals(trie.match("GET", "/v1/twitter/followers/metrics").getIndex(), 2);
+    }
+
+    @Test
+    public void when_expression_contains_space_match_whole_expression() {
+        // GIVEN
+        List<ParsedEndpoint> endpoints = new ArrayList<ParsedEndpoint>();
+        endpoints.add(endpoint("GET", "/v1/tags/{tag}/{id}", false, "tag", "[a-z]+(?: [a-z]+)*", "id", "\\d+"));
+        // WHEN
+        RouteTrie trie = RouteTrie.build("v1", endpoints);
+        // THEN
+        Assert.assertEquals(trie.match("GET", "/v1/tags/red apple/7").getExternalEndpoint(), "/v1/tags/{tag}/{id}");
+        Assert.assertNull(trie.match("GET", "/v1/tags/red apple/x"));
+    }
+}
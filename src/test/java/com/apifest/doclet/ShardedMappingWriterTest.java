@@ -0,0 +1,125 @@
+package com.apifest.doclet;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.apifest.api.MappingEndpoint;
+import com.apifest.api.MappingEndpointDocumentation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ShardedMappingWriterTest
+{
+    private ParsedEndpoint endpoint(String externalEndpoint, String group, String backendHost, boolean hidden) {
+        MappingEndpoint mappingEndpoint = new MappingEndpoint();
+        mappingEndpoint.setExternalEndpoint(externalEndpoint);
+        mappingEndpoint.setInternalEndpoint("/internal" + externalEndpoint);
+        mappingEndpoint.setMethod("GET");
+        mappingEndpoint.setBackendHost(backendHost);
+        mappingEndpoint.setHidden(hidden);
+        MappingEndpointDocumentation mappingEndpointDocumentation = new MappingEndpointDocumentation();
+        mappingEndpointDocumentation.setEndpoint(externalEndpoint);
+        mappingEndpointDocumentation.setGroup(group);
+        ParsedEndpoint parsed = new ParsedEndpoint();
+        parsed.setMappingEndpoint(mappingEndpoint);
+        parsed.setMappingEndpointDocumentation(mappingEndpointDocumentation);
+        return parsed;
+    }
+
+    private List<ParsedEndpoint> endpoints() {
+        List<ParsedEndpoint> endpoints = new ArrayList<ParsedEndpoint>();
+        endpoints.add(endpoint("/v1/twitter/followers/stream", "Twitter Followers", null, false));
+        endpoints.add(endpoint("/v1/users/me", null, "users.local", false));
+        endpoints.add(endpoint("/v1/twitter/followers/hidden", "Twitter Followers", null, true));
+        endpoints.add(endpoint("/v1/twitter/followers/metrics", "Twitter Followers", "metrics.local", false));
+        return endpoints;
+    }
+
+    @Test
+    public void when_split_by_group_endpoints_without_group_go_to_default_shard() {
+        // GIVEN
+        ShardedMappingWriter writer = new ShardedMappingWriter(Path.of("output_mapping_v1.xml"), "v1", "localhost", 1212, ShardBy.GROUP);
+        // WHEN
+        Map<String, List<ParsedEndpoint>> shards = writer.split(endpoints());
+        // THEN
+        Assert.assertEquals(new ArrayList<String>(shards.keySet()).toString(), "[Twitter Followers, default]");
+        Assert.assertEquals(shards.get("Twitter Followers").size(), 2);
+        Assert.assertEquals(shards.get("default").get(0).getMappingEndpoint().getExternalEndpoint(), "/v1/users/me");
+    }
+
+    @Test
+    public void when_split_by_backend_host_use_default_backend_host() {
+        // GIVEN
+        ShardedMappingWriter writer = new ShardedMappingWriter(Path.of("output_mapping_v1.xml"), "v1", "localhost", 1212, ShardBy.BACKEND_HOST);
+        // WHEN
+        Map<String, List<ParsedEndpoint>> shards = writer.split(endpoints());
+        // THEN
+        Assert.assertEquals(new ArrayList<String>(shards.keySet()).toString(), "[localhost, users.local, metrics.local]");
+    }
+
+    @Test
+    public void when_write_shards_output_one_file_per_shard_and_index() throws Exception {
+        // GIVEN
+        Path dir = Files.createTempDirectory("apifest-shards");
+        ShardedMappingWriter writer = new ShardedMappingWriter(dir.resolve("output_mapping_v1.xml"), "v1", "localhost", 1212, ShardBy.GROUP);
+        // WHEN
+        List<Path> written = writer.write(endpoints(), 2);
+        // THEN
+        Assert.assertEquals(written.size(), 3);
+        Assert.assertTrue(Files.exists(dir.resolve("output_mapping_v1_twitter-followers.xml")));
+        Assert.assertTrue(Files.exists(dir.resolve("output_mapping_v1_default.xml")));
+        JsonNode index = new ObjectMapper().readTree(dir.resolve("output_mapping_v1_index.json").toFile());
+        Assert.assertEquals(index.get("shardBy").asText(), "group");
+        Assert.assertEquals(index.get("shards").get(0).get("file").asText(), "output_mapping_v1_twitter-followers.xml");
+        Assert.assertEquals(index.get("shards").get(0).get("endpoints").asInt(), 2);
+    }
+
+    @Test
+    public void when_shard_key_changes_stale_shards_are_deleted() throws Exception {
+        // GIVEN
+        Path dir = Files.createTempDirectory("apifest-shards");
+        Path delta = Files.createFile(dir.resolve("output_mapping_v1_delta.xml"));
+        new ShardedMappingWriter(dir.resolve("output_mapping_v1.xml"), "v1", "localhost", 1212, ShardBy.GROUP).write(endpoints(), 1);
+        // WHEN
+        new ShardedMappingWriter(dir.resolve("output_mapping_v1.xml"), "v1", "localhost", 1212, ShardBy.BACKEND_HOST).write(endpoints(), 1);
+        // THEN
+        Assert.assertFalse(Files.exists(dir.resolve("output_mapping_v1_twitter-followers.xml")));
+        Assert.assertFalse(Files.exists(dir.resolve("output_mapping_v1_default.xml")));
+        Assert.assertTrue(Files.exists(dir.resolve("output_mapping_v1_localhost.xml")));
+        Assert.assertTrue(Files.exists(delta));
+    }
+
+    @Test
+    public void when_shard_is_named_delta_do_not_write_it_to_delta_file() throws Exception {
+        // GIVEN
+        Path dir = Files.createTempDirectory("apifest-shards");
+        Path delta = Files.write(dir.resolve("output_mapping_v1_delta.xml"), "<delta/>".getBytes("UTF-8"));
+        List<ParsedEndpoint> endpoints = new ArrayList<ParsedEndpoint>();
+        endpoints.add(endpoint("/v1/twitter/followers/stream", "Delta", null, false));
+        ShardedMappingWriter writer = new ShardedMappingWriter(dir.resolve("output_mapping_v1.xml"), "v1", "localhost", 1212, ShardBy.GROUP);
+        // WHEN
+        writer.write(endpoints, 1);
+        // THEN
+        Assert.assertEquals(new String(Files.readAllBytes(delta), "UTF-8"), "<delta/>");
+        Assert.assertTrue(Files.exists(dir.resolve("output_mapping_v1_delta-2.xml")));
+    }
+
+    @Test
+    public void when_shard_endpoints_share_backend_host_shard_backend_uses_it() throws Exception {
+        // GIVEN
+        Path dir = Files.createTempDirectory("apifest-shards");
+        ShardedMappingWriter writer = new ShardedMappingWriter(dir.resolve("output_mapping_v1.xml"), "v1", "localhost", 1212, ShardBy.BACKEND_HOST);
+        // WHEN
+        writer.write(endpoints(), 1);
+        // THEN
+        String users = new String(Files.readAllBytes(dir.resolve("output_mapping_v1_users-local.xml")), "UTF-8");
+        Assert.assertTrue(users.contains("host=\"users.local\""), users);
+        Assert.assertFalse(users.contains("host=\"localhost\""), users);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.apifest.doclet.integration.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.DocumentationTool;
+import javax.tools.ToolProvider;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DocletOutputTest {
+    private static final String[] OUTPUT_FILES = {"all-mappings-docs.json", "all-mappings.xml", "all-mappings.bin"};
+
+    private Path runDoclet(String... options) throws IOException {
+        return runDoclet(List.of("com.apifest.doclet.tests.resources", "com.apifest.doclet.tests.resources.users"), options);
+    }
+
+    private Path runDoclet(List<String> packages, String... options) throws IOException {
+        Path outputDir = Files.createTempDirectory("apifest-doclet-output");
+        List<String> args = new ArrayList<>(List.of(
+                "-doclet", "com.apifest.doclet.Doclet",
+                "-classpath", System.getProperty("java.class.path"),
+                "-sourcepath", "./src/test/java".replace('/', File.separatorChar),
+                "-mode", "doc,mapping,binary",
+                "-mappingVersion", "v1",
+                "-mappingFilename", outputDir.resolve("all-mappings.xml").toString(),
+                "-mappingDocsFilename", outputDir.resolve("all-mappings-docs.json").toString(),
+                "-backendHost", "localhost",
+                "-backendPort", "1212",
+                "-applicationPath", "/",
+                "-customAnnotations", "com.apifest.doclet.tests.resources.CustomAnnotation,com.apifest.doclet.tests.resources.Multiple"));
+        args.addAll(List.of(options));
+        args.addAll(packages);
+        DocumentationTool javadoc = ToolProvider.getSystemDocumentationTool();
+        int result = javadoc.run(null, null, null, args.toArray(new String[0]));
+        Assert.assertEquals(result, 0);
+        return outputDir;
+    }
+
+    private void assertSameOutput(Path expectedDir, Path actualDir) throws IOException {
+        for (String file : OUTPUT_FILES) {
+            Assert.assertEquals(Files.readAllBytes(actualDir.resolve(file)), Files.readAllBytes(expectedDir.resolve(file)), file);
+        }
+    }
+
+    @Test
+    public void when_parsed_in_parallel_output_is_byte_identical_to_single_thread() throws IOException {
+        // GIVEN
+        Path singleThreadDir = runDoclet("-parallelism", "1");
+
+        // WHEN
+        Path parallelDir = runDoclet("-parallelism", "4");
+
+        // THEN
+        assertSameOutput(singleThreadDir, parallelDir);
+    }
+
+    @Test
+    public void when_mapping_streamed_output_is_byte_identical_to_jaxb_marshalling() throws IOException {
+        // GIVEN
+        Path jaxbDir = runDoclet("-mappingWriter", "jaxb");
+
+        // WHEN
+        Path staxDir = runDoclet("-mappingWriter", "stax");
+
+        // THEN
+        Assert.assertEquals(Files.readAllBytes(staxDir.resolve("all-mappings.xml")), Files.readAllBytes(jaxbDir.resolve("all-mappings.xml")),
+                "all-mappings.xml");
+    }
+
+    @Test
+    public void when_pipelined_output_is_byte_identical_to_stored_endpoints() throws IOException {
+        // GIVEN the users resource has no apifest.docs.order tags, so the parse order is the output order
+        List<String> packages = List.of("com.apifest.doclet.tests.resources.users");
+        Path storedDir = runDoclet(packages);
+
+        // WHEN
+        Path pipelinedDir = runDoclet(packages, "-unordered");
+
+        // THEN
+        assertSameOutput(storedDir, pipelinedDir);
+    }
+
+    @Test
+    public void when_interface_has_method_without_external_tag_skip_it_and_emit_endpoints() throws IOException {
+        // GIVEN
+        Path metricsFile = Files.createTempFile("apifest-doclet-metrics", ".json");
+
+        // WHEN
+        Path outputDir = runDoclet(List.of("com.apifest.doclet.tests.resources.users"), "-metricsFile", metricsFile.toString());
+
+        // THEN
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode endpoints = mapper.readTree(outputDir.resolve("all-mappings-docs.json").toFile()).get("endpoints");
+        List<String> emitted = new ArrayList<>();
+        for (JsonNode endpoint : endpoints) {
+            emitted.add(endpoint.get("method").asText() + " " + endpoint.get("endpoint").asText());
+        }
+        Assert.assertEquals(emitted, List.of("GET /v1/users", "DELETE /v1/users/{userId}", "POST /v1/users"));
+        JsonNode counts = mapper.readTree(metricsFile.toFile()).get("counts");
+        Assert.assertEquals(counts.get("skippedMethods").asLong(), 1L);
+        Assert.assertEquals(counts.get("endpoints").asLong(), 3L);
+    }
+}
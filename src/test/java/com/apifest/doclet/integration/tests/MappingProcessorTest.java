@@ -0,0 +1,117 @@
+/*
+* Copyright 2013-2015, ApiFest project
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+
+package com.apifest.doclet.integration.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MappingProcessorTest {
+
+    private static final String PARSING_RESOURCE = "./src/test/java/com/apifest/doclet/tests/resources/TestParsingResource.java";
+    private static final String USERS_RESOURCE = "./src/test/java/com/apifest/doclet/tests/resources/users/TestUsersResource.java";
+
+    /**
+     * Compiles the sources with the processor into the output directory, which is on the classpath too.
+     */
+    private int compile(Path outputDir, List<String> sources, String... options) {
+        List<String> args = new ArrayList<>(List.of(
+                "-processor", "com.apifest.doclet.MappingProcessor",
+                "-classpath", System.getProperty("java.class.path") + File.pathSeparator + outputDir,
+                "-d", outputDir.toString(),
+                "-AmappingVersion=v1",
+                "-Amode=doc",
+                "-AmappingDocsFilename=all-mappings-docs.json"));
+        args.addAll(List.of(options));
+        for (String source : sources) {
+            args.add(source.replace('/', File.separatorChar));
+        }
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        return javac.run(null, null, null, args.toArray(new String[0]));
+    }
+
+    private JsonNode readEndpoints(Path outputDir) throws IOException {
+        return new ObjectMapper().readTree(outputDir.resolve("all-mappings-docs.json").toFile()).get("endpoints");
+    }
+
+    private JsonNode runProcessor(String... options) throws IOException {
+        Path outputDir = Files.createTempDirectory("apifest-processor-output");
+        Assert.assertEquals(compile(outputDir, List.of(PARSING_RESOURCE), options), 0);
+        return readEndpoints(outputDir);
+    }
+
+    @Test
+    public void when_compile_with_processor_outputs_docs() throws IOException {
+        // WHEN
+        JsonNode endpoints = runProcessor();
+
+        // THEN
+        Assert.assertTrue(endpoints.size() > 0);
+        Assert.assertTrue(endpoints.get(0).get("endpoint").asText().startsWith("/v1/"));
+    }
+
+    @Test
+    public void when_custom_annotation_attribute_is_set_record_only_that_attribute() throws IOException {
+        // WHEN
+        JsonNode endpoints = runProcessor("-AcustomAnnotations=com.apifest.doclet.tests.resources.Multiple:names");
+
+        // THEN
+        JsonNode customProperties = endpoints.get(1).get("customProperties");
+        Assert.assertEquals(customProperties.get("com.apifest.doclet.tests.resources.Multiple.names").asText(), "test,test2");
+        Assert.assertNull(customProperties.get("com.apifest.doclet.tests.resources.Multiple.value"));
+        Assert.assertNull(customProperties.get("com.apifest.doclet.tests.resources.CustomAnnotation.value"));
+    }
+
+    @Test
+    public void when_build_is_incremental_output_files_are_left_unchanged() throws IOException {
+        // GIVEN
+        Path outputDir = Files.createTempDirectory("apifest-processor-output");
+        Assert.assertEquals(compile(outputDir, List.of(PARSING_RESOURCE, USERS_RESOURCE)), 0);
+        byte[] fullBuildDocs = Files.readAllBytes(outputDir.resolve("all-mappings-docs.json"));
+
+        // WHEN
+        int result = compile(outputDir, List.of(USERS_RESOURCE));
+
+        // THEN
+        Assert.assertEquals(result, 0);
+        Assert.assertEquals(Files.readAllBytes(outputDir.resolve("all-mappings-docs.json")), fullBuildDocs);
+    }
+
+    @Test
+    public void when_output_file_name_is_absolute_fail() throws IOException {
+        // GIVEN
+        Path outputDir = Files.createTempDirectory("apifest-processor-output");
+
+        // WHEN
+        int result = compile(outputDir, List.of(PARSING_RESOURCE), "-AmappingDocsFilename=" + outputDir.resolve("docs.json"));
+
+        // THEN
+        Assert.assertNotEquals(result, 0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.apifest.doclet.tests.resources.users;
+
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.core.Response;
+
+import com.apifest.doclet.tests.resources.CustomAnnotation;
+
+@Path("/{clientId}/users")
+public interface TestUsersResource {
+
+    /**
+     * @apifest.external /users
+     * @apifest.internal {clientId}/users
+     * @apifest.scope users
+     * @apifest.docs.group Users
+     * @apifest.docs.summary Lists the users
+     * @apifest.docs.results.id The id of the user
+     * @apifest.docs.results.id.type string
+     */
+    @GET
+    @CustomAnnotation(value = {"users"})
+    Response getUsers(@PathParam("clientId") String clientId);
+
+    /**
+     * Lists the users of the default client, a helper which is not an endpoint.
+     */
+    default Response getDefaultUsers() {
+        return getUsers("default");
+    }
+
+    /**
+     * @apifest.external /users/{userId}
+     * @apifest.internal {clientId}/users/{userId}
+     * @apifest.scope users
+     * @apifest.re.userId \d+
+     * @apifest.docs.group Users
+     * @apifest.docs.params.userId The id of the user
+     * @apifest.docs.params.userId.type integer
+     */
+    @Path("/{userId}")
+    @DELETE
+    Response deleteUser(@PathParam("clientId") String clientId, @PathParam("userId") String userId);
+
+    /**
+     * @apifest.external /users
+     * @apifest.internal {clientId}/users
+     * @apifest.scope users_write
+     * @apifest.docs.group Users
+     * @apifest.docs.exampleRequest {"name": "user"}
+     */
+    @POST
+    Response createUser(@PathParam("clientId") String clientId, String body);
+}